@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Time from container start to the first successful GET /api/payment/status/{uuid}
+# for each Dockerfile.backend target (jvm, cds, native).
+#
+# Usage: scripts/startup-benchmark.sh [runs-per-mode]
+# Needs docker. Starts throwaway MySQL + Redis containers on a private network.
+set -euo pipefail
+
+RUNS=${1:-3}
+MODES=${MODES:-"jvm cds native"}
+NETWORK=payments-bench
+PORT=18086
+MYSQL_PASSWORD=bench
+
+cd "$(dirname "$0")/.."
+
+cleanup() {
+  docker rm -f bench-backend bench-mysql bench-redis >/dev/null 2>&1 || true
+  docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+now_ms() { date +%s%3N; }
+
+cleanup
+docker network create "$NETWORK" >/dev/null
+docker run -d --name bench-mysql --network "$NETWORK" \
+  -e MYSQL_ROOT_PASSWORD=$MYSQL_PASSWORD -e MYSQL_DATABASE=payments mysql:8.0 >/dev/null
+docker run -d --name bench-redis --network "$NETWORK" redis:7-alpine >/dev/null
+
+echo "Waiting for MySQL..."
+until docker exec bench-mysql mysqladmin ping -uroot -p$MYSQL_PASSWORD --silent >/dev/null 2>&1; do sleep 1; done
+
+for mode in $MODES; do
+  echo "Building $mode image..."
+  docker build -q -f Dockerfile.backend --target "$mode" -t "payments-backend:bench-$mode" . >/dev/null
+done
+
+printf "%-8s %-4s %s\n" mode run time_to_first_status_ms
+for mode in $MODES; do
+  for run in $(seq 1 "$RUNS"); do
+    docker rm -f bench-backend >/dev/null 2>&1 || true
+    start=$(now_ms)
+    docker run -d --name bench-backend --network "$NETWORK" -p $PORT:8086 \
+      -e SPRING_DATASOURCE_URL="jdbc:mysql://bench-mysql:3306/payments?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC" \
+      -e SPRING_DATASOURCE_USERNAME=root -e SPRING_DATASOURCE_PASSWORD=$MYSQL_PASSWORD \
+      -e MYSQL_DATABASE=payments -e MYSQL_ROOT_USER=root -e MYSQL_ROOT_PASSWORD=$MYSQL_PASSWORD \
+      -e SPRING_DATA_REDIS_HOST=bench-redis \
+      -e STRIPE_API_KEY=sk_test_bench -e STRIPE_WEBHOOK_SECRET=whsec_bench \
+      "payments-backend:bench-$mode" >/dev/null
+
+    until curl -fs -o /dev/null "http://localhost:$PORT/api/payment/status/startup-benchmark"; do
+      if ! docker ps -q -f name=bench-backend | grep -q .; then
+        echo "$mode container exited:"; docker logs bench-backend | tail -20; exit 1
+      fi
+      sleep 0.05
+    done
+    printf "%-8s %-4s %s\n" "$mode" "$run" "$(( $(now_ms) - start ))"
+  done
+done
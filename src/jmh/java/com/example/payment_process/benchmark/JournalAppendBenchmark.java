@@ -0,0 +1,64 @@
+package com.example.payment_process.benchmark;
+
+import com.example.payment_process.dto.AuditEventType;
+import com.example.payment_process.dto.AuditRecord;
+import com.example.payment_process.journal.PaymentJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of one audit append. durable=false is the raw mmap write + CRC; durable=true also waits for the
+ * group-commit fsync, shared by the 8 benchmark threads. Compare with the hikaricp.connections.usage
+ * timer of a running instance, which is what one more audit INSERT would have cost per request.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports gc.alloc.rate.norm (bytes/op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+public class JournalAppendBenchmark {
+
+    @Param({"false", "true"})
+    public boolean durable;
+
+    private Path dir;
+    private PaymentJournal journal;
+    private AuditRecord record;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = new PaymentJournal(dir, 64L * 1024 * 1024, 1, durable);
+        journal.open();
+        record = AuditRecord.builder()
+                .timestamp(Instant.now())
+                .event(AuditEventType.GATEWAY_RESULT)
+                .paymentUuid(UUID.randomUUID() + "-intent")
+                .status("requires_payment_method")
+                .amount(60000L)
+                .currency("usd")
+                .gatewayReference("pi_3PqBenchmarkIntent")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        return journal.append(record);
+    }
+}
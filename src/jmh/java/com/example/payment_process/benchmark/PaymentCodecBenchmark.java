@@ -0,0 +1,98 @@
+package com.example.payment_process.benchmark;
+
+import com.example.payment_process.codec.PaymentProtobufCodec;
+import com.example.payment_process.dto.PaymentResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode / decode throughput of PaymentResponse per codec, as negotiated by PaymentController:
+ * JSON as the browser gets it (nulls included), CBOR and protobuf without nulls.
+ * {@code create} is the /create answer (4 of 15 fields set), {@code status} a full /status answer.
+ * Encoded sizes are printed at setup. Run with {@code ./gradlew jmh}; the gc profiler reports
+ * gc.alloc.rate.norm (bytes/op).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PaymentCodecBenchmark {
+
+    @Param({"json", "cbor", "protobuf"})
+    public String codec;
+
+    @Param({"create", "status"})
+    public String payload;
+
+    private ObjectMapper mapper;
+    private PaymentResponse response;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mapper = switch (codec) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().serializationInclusion(JsonInclude.Include.NON_NULL).build();
+            default -> null;
+        };
+        response = "create".equals(payload) ? createResponse() : statusResponse();
+        encoded = encode();
+        System.out.println(codec + "/" + payload + ": " + encoded.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (mapper != null) {
+            return mapper.writeValueAsBytes(response);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        PaymentProtobufCodec.write(response, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public PaymentResponse decode() throws IOException {
+        if (mapper != null) {
+            return mapper.readValue(encoded, PaymentResponse.class);
+        }
+        return PaymentProtobufCodec.readPaymentResponse(CodedInputStream.newInstance(encoded));
+    }
+
+    private static PaymentResponse createResponse() {
+        return PaymentResponse.builder()
+                .success(true)
+                .paymentId("4242")
+                .clientSecret("pi_3PqBenchmarkIntent_secret_Xy7Zk2LmNoPqRsTuVwXyZ")
+                .message("PaymentIntent created")
+                .build();
+    }
+
+    private static PaymentResponse statusResponse() {
+        return PaymentResponse.builder()
+                .success(true)
+                .paymentId("4242")
+                .message("Payment status")
+                .orderId(4242L)
+                .productDesc("Annual plan")
+                .amount(60000L)
+                .currency("usd")
+                .status("PAYMENT_SUCCEEDED")
+                .paymentUuid("f7b1b2c6-93d8-4b45-9af8-8f6c4c93e912-intent")
+                .lastTransactionUuid("0b6f1c3e-5a2d-4e8f-9c7b-1d2e3f4a5b6c")
+                .lastTransactionStatus("SUCCEEDED")
+                .lastGateway("STRIPE")
+                .lastGatewayTransactionId("pi_3PqBenchmarkIntent")
+                .lastTransactionCreatedAt(Instant.parse("2025-01-15T10:15:30.123456Z"))
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.payment_process.benchmark;
+
+import com.example.payment_process.component.StripeWebhookParser;
+import com.example.payment_process.dto.StripeWebhookEnvelope;
+import com.stripe.model.Event;
+import com.stripe.model.StripeObject;
+import com.stripe.net.Webhook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of the webhook entry point: full {@link Webhook#constructEvent} plus
+ * data object deserialization (before) vs. HMAC check plus streaming envelope parse (after).
+ * Run with {@code ./gradlew jmh}; the gc profiler reports gc.alloc.rate.norm (bytes/op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WebhookParseBenchmark {
+
+    private static final String SECRET = "whsec_benchmark";
+
+    private static final String CHECKOUT_COMPLETED = """
+            {
+              "id": "evt_1PqBenchmarkCheckout",
+              "object": "event",
+              "api_version": "2024-06-20",
+              "created": 1724000000,
+              "data": {
+                "object": {
+                  "id": "cs_test_a1B2c3D4e5F6g7H8i9J0kLmNoPqRsTuVwXyZ",
+                  "object": "checkout.session",
+                  "amount_subtotal": 60000,
+                  "amount_total": 60000,
+                  "automatic_tax": {"enabled": false, "liability": null, "status": null},
+                  "cancel_url": "http://localhost:3000/cancel",
+                  "created": 1723999900,
+                  "currency": "usd",
+                  "customer_details": {
+                    "address": {"city": null, "country": "US", "line1": null, "line2": null, "postal_code": "94107", "state": null},
+                    "email": "buyer@example.com",
+                    "name": "Test Buyer",
+                    "phone": null,
+                    "tax_exempt": "none",
+                    "tax_ids": []
+                  },
+                  "livemode": false,
+                  "metadata": {},
+                  "mode": "payment",
+                  "payment_intent": "pi_3PqBenchmarkIntent",
+                  "payment_method_types": ["card"],
+                  "payment_status": "paid",
+                  "status": "complete",
+                  "success_url": "http://localhost:3000/success?paymentId=42",
+                  "total_details": {"amount_discount": 0, "amount_shipping": 0, "amount_tax": 0},
+                  "url": null
+                }
+              },
+              "livemode": false,
+              "pending_webhooks": 1,
+              "request": {"id": null, "idempotency_key": null},
+              "type": "checkout.session.completed"
+            }
+            """;
+
+    private static final String CHARGE_UPDATED = """
+            {
+              "id": "evt_1PqBenchmarkCharge",
+              "object": "event",
+              "api_version": "2024-06-20",
+              "created": 1724000000,
+              "data": {
+                "object": {
+                  "id": "ch_3PqBenchmarkCharge",
+                  "object": "charge",
+                  "amount": 60000,
+                  "amount_captured": 60000,
+                  "amount_refunded": 0,
+                  "billing_details": {"address": {"country": "US", "postal_code": "94107"}, "email": "buyer@example.com", "name": "Test Buyer", "phone": null},
+                  "captured": true,
+                  "created": 1723999950,
+                  "currency": "usd",
+                  "livemode": false,
+                  "metadata": {},
+                  "outcome": {"network_status": "approved_by_network", "reason": null, "risk_level": "normal", "risk_score": 12, "seller_message": "Payment complete.", "type": "authorized"},
+                  "paid": true,
+                  "payment_intent": "pi_3PqBenchmarkIntent",
+                  "payment_method": "pm_1PqBenchmarkMethod",
+                  "payment_method_details": {"card": {"brand": "visa", "country": "US", "exp_month": 12, "exp_year": 2030, "funding": "credit", "last4": "4242", "network": "visa"}, "type": "card"},
+                  "receipt_url": "https://pay.stripe.com/receipts/benchmark",
+                  "refunded": false,
+                  "status": "succeeded"
+                },
+                "previous_attributes": {"receipt_url": null}
+              },
+              "livemode": false,
+              "pending_webhooks": 1,
+              "request": {"id": null, "idempotency_key": null},
+              "type": "charge.updated"
+            }
+            """;
+
+    @Param({"checkout.session.completed", "charge.updated"})
+    public String eventType;
+
+    private String payload;
+    private String sigHeader;
+    private StripeWebhookParser parser;
+
+    @Setup
+    public void setUp() throws Exception {
+        payload = "charge.updated".equals(eventType) ? CHARGE_UPDATED : CHECKOUT_COMPLETED;
+        long timestamp = System.currentTimeMillis() / 1000;
+        String signature = Webhook.Util.computeHmacSha256(SECRET, timestamp + "." + payload);
+        sigHeader = "t=" + timestamp + ",v1=" + signature;
+        parser = new StripeWebhookParser();
+    }
+
+    // Previous path: constructEvent (HMAC + GSON Event) then data object deserialization
+    @Benchmark
+    public Object constructEvent() throws Exception {
+        Event event = Webhook.constructEvent(payload, sigHeader, SECRET, 0);
+        if ("charge.updated".equals(event.getType())) {
+            return event.getId();
+        }
+        Optional<StripeObject> object = event.getDataObjectDeserializer().getObject();
+        return object.orElse(null);
+    }
+
+    // Current path: HMAC check then streaming read of id / type / data.object.id
+    @Benchmark
+    public StripeWebhookEnvelope verifyAndParseEnvelope() throws Exception {
+        Webhook.Signature.verifyHeader(payload, sigHeader, SECRET, 0);
+        return parser.parse(payload);
+    }
+
+    // Envelope parse alone, to separate JSON cost from HMAC cost
+    @Benchmark
+    public StripeWebhookEnvelope parseEnvelopeOnly() {
+        return parser.parse(payload);
+    }
+}
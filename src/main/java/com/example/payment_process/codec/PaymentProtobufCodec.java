@@ -0,0 +1,232 @@
+package com.example.payment_process.codec;
+
+import com.example.payment_process.dto.OrderRequest;
+import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.dto.PaymentSummary;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Protobuf wire encoding of the payment DTOs, written by hand against
+ * {@code src/main/resources/proto/payment.proto} so the DTOs stay plain Lombok classes and no
+ * generated message objects are built per request. Null fields are not written; unknown fields
+ * are skipped on read. Instants use the google.protobuf.Timestamp layout (seconds, nanos).
+ */
+public final class PaymentProtobufCodec {
+
+    private PaymentProtobufCodec() {
+    }
+
+    // ---------------------------
+    // OrderRequest
+    // ---------------------------
+    public static void write(OrderRequest request, CodedOutputStream out) throws IOException {
+        writeInt64(out, 1, request.getAmount());
+        writeString(out, 2, request.getCurrency());
+        writeString(out, 3, request.getDescription());
+    }
+
+    public static OrderRequest readOrderRequest(CodedInputStream in) throws IOException {
+        OrderRequest request = new OrderRequest();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> request.setAmount(in.readInt64());
+                case 2 -> request.setCurrency(in.readStringRequireUtf8());
+                case 3 -> request.setDescription(in.readStringRequireUtf8());
+                default -> in.skipField(tag);
+            }
+        }
+        return request;
+    }
+
+    // ---------------------------
+    // PaymentResponse
+    // ---------------------------
+    public static void write(PaymentResponse response, CodedOutputStream out) throws IOException {
+        if (response.isSuccess()) {
+            out.writeBool(1, true);
+        }
+        writeString(out, 2, response.getPaymentId());
+        writeString(out, 3, response.getClientSecret());
+        writeString(out, 4, response.getMessage());
+        writeInt64(out, 5, response.getOrderId());
+        writeString(out, 6, response.getProductDesc());
+        writeInt64(out, 7, response.getAmount());
+        writeString(out, 8, response.getCurrency());
+        writeString(out, 9, response.getStatus());
+        writeString(out, 10, response.getPaymentUuid());
+        writeString(out, 11, response.getLastTransactionUuid());
+        writeString(out, 12, response.getLastTransactionStatus());
+        writeString(out, 13, response.getLastGateway());
+        writeString(out, 14, response.getLastGatewayTransactionId());
+        writeTimestamp(out, 15, response.getLastTransactionCreatedAt());
+    }
+
+    public static PaymentResponse readPaymentResponse(CodedInputStream in) throws IOException {
+        PaymentResponse response = new PaymentResponse();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> response.setSuccess(in.readBool());
+                case 2 -> response.setPaymentId(in.readStringRequireUtf8());
+                case 3 -> response.setClientSecret(in.readStringRequireUtf8());
+                case 4 -> response.setMessage(in.readStringRequireUtf8());
+                case 5 -> response.setOrderId(in.readInt64());
+                case 6 -> response.setProductDesc(in.readStringRequireUtf8());
+                case 7 -> response.setAmount(in.readInt64());
+                case 8 -> response.setCurrency(in.readStringRequireUtf8());
+                case 9 -> response.setStatus(in.readStringRequireUtf8());
+                case 10 -> response.setPaymentUuid(in.readStringRequireUtf8());
+                case 11 -> response.setLastTransactionUuid(in.readStringRequireUtf8());
+                case 12 -> response.setLastTransactionStatus(in.readStringRequireUtf8());
+                case 13 -> response.setLastGateway(in.readStringRequireUtf8());
+                case 14 -> response.setLastGatewayTransactionId(in.readStringRequireUtf8());
+                case 15 -> response.setLastTransactionCreatedAt(readTimestamp(in));
+                default -> in.skipField(tag);
+            }
+        }
+        return response;
+    }
+
+    // ---------------------------
+    // PaymentSummary / PaymentSummaryList
+    // ---------------------------
+    public static void write(PaymentSummary summary, CodedOutputStream out) throws IOException {
+        writeString(out, 1, summary.getUuid());
+        writeInt64(out, 2, summary.getAmount());
+        writeString(out, 3, summary.getCurrency());
+        writeString(out, 4, summary.getStatus());
+        writeTimestamp(out, 5, summary.getCreatedAt());
+        writeString(out, 6, summary.getDescription());
+    }
+
+    public static PaymentSummary readPaymentSummary(CodedInputStream in) throws IOException {
+        PaymentSummary summary = new PaymentSummary();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> summary.setUuid(in.readStringRequireUtf8());
+                case 2 -> summary.setAmount(in.readInt64());
+                case 3 -> summary.setCurrency(in.readStringRequireUtf8());
+                case 4 -> summary.setStatus(in.readStringRequireUtf8());
+                case 5 -> summary.setCreatedAt(readTimestamp(in));
+                case 6 -> summary.setDescription(in.readStringRequireUtf8());
+                default -> in.skipField(tag);
+            }
+        }
+        return summary;
+    }
+
+    // Each summary is a length-delimited field 1; its size is computed first, nothing is buffered
+    public static void writeSummaries(List<PaymentSummary> summaries, CodedOutputStream out) throws IOException {
+        for (PaymentSummary summary : summaries) {
+            out.writeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(sizeOf(summary));
+            write(summary, out);
+        }
+    }
+
+    public static List<PaymentSummary> readSummaries(CodedInputStream in) throws IOException {
+        List<PaymentSummary> summaries = new ArrayList<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                int limit = in.pushLimit(in.readRawVarint32());
+                summaries.add(readPaymentSummary(in));
+                in.popLimit(limit);
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return summaries;
+    }
+
+    private static int sizeOf(PaymentSummary summary) {
+        return stringSize(1, summary.getUuid())
+                + int64Size(2, summary.getAmount())
+                + stringSize(3, summary.getCurrency())
+                + stringSize(4, summary.getStatus())
+                + timestampSize(5, summary.getCreatedAt())
+                + stringSize(6, summary.getDescription());
+    }
+
+    // ---------------------------
+    // Field helpers: null means absent
+    // ---------------------------
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static void writeInt64(CodedOutputStream out, int field, Long value) throws IOException {
+        if (value != null) {
+            out.writeInt64(field, value);
+        }
+    }
+
+    // google.protobuf.Timestamp { int64 seconds = 1; int32 nanos = 2; }
+    private static void writeTimestamp(CodedOutputStream out, int field, Instant value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(timestampBodySize(value));
+        if (value.getEpochSecond() != 0) {
+            out.writeInt64(1, value.getEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            out.writeInt32(2, value.getNano());
+        }
+    }
+
+    private static Instant readTimestamp(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        long seconds = 0;
+        int nanos = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> seconds = in.readInt64();
+                case 2 -> nanos = in.readInt32();
+                default -> in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static int int64Size(int field, Long value) {
+        return value == null ? 0 : CodedOutputStream.computeInt64Size(field, value);
+    }
+
+    private static int timestampSize(int field, Instant value) {
+        if (value == null) {
+            return 0;
+        }
+        int body = timestampBodySize(value);
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(body) + body;
+    }
+
+    private static int timestampBodySize(Instant value) {
+        int size = 0;
+        if (value.getEpochSecond() != 0) {
+            size += CodedOutputStream.computeInt64Size(1, value.getEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            size += CodedOutputStream.computeInt32Size(2, value.getNano());
+        }
+        return size;
+    }
+}
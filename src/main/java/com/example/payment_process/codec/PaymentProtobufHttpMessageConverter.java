@@ -0,0 +1,101 @@
+package com.example.payment_process.codec;
+
+import com.example.payment_process.dto.OrderRequest;
+import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.dto.PaymentSummary;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code application/x-protobuf} for the payment API: OrderRequest in, PaymentResponse and
+ * PaymentSummary / List&lt;PaymentSummary&gt; out (and back, for Java clients using this converter).
+ * Any other type is left to the other converters.
+ */
+public class PaymentProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final Set<Class<?>> MESSAGE_TYPES = Set.of(OrderRequest.class, PaymentResponse.class, PaymentSummary.class);
+
+    public PaymentProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MESSAGE_TYPES.contains(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return isMessageType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return (type != null ? isMessageType(type) : supports(clazz)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        if (isSummaryList(type)) {
+            return PaymentProtobufCodec.readSummaries(CodedInputStream.newInstance(inputMessage.getBody()));
+        }
+        return readInternal((Class<?>) type, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        CodedInputStream in = CodedInputStream.newInstance(inputMessage.getBody());
+        if (clazz == OrderRequest.class) {
+            return PaymentProtobufCodec.readOrderRequest(in);
+        }
+        if (clazz == PaymentResponse.class) {
+            return PaymentProtobufCodec.readPaymentResponse(in);
+        }
+        if (clazz == PaymentSummary.class) {
+            return PaymentProtobufCodec.readPaymentSummary(in);
+        }
+        throw new HttpMessageNotReadableException("No protobuf mapping for " + clazz.getName(), inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputMessage.getBody());
+        switch (value) {
+            case OrderRequest request -> PaymentProtobufCodec.write(request, out);
+            case PaymentResponse response -> PaymentProtobufCodec.write(response, out);
+            case PaymentSummary summary -> PaymentProtobufCodec.write(summary, out);
+            case List<?> summaries -> PaymentProtobufCodec.writeSummaries((List<PaymentSummary>) summaries, out);
+            default -> throw new HttpMessageNotWritableException("No protobuf mapping for " + value.getClass().getName());
+        }
+        out.flush();
+    }
+
+    private static boolean isMessageType(Type type) {
+        return (type instanceof Class<?> clazz && MESSAGE_TYPES.contains(clazz)) || isSummaryList(type);
+    }
+
+    private static boolean isSummaryList(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == PaymentSummary.class;
+    }
+}
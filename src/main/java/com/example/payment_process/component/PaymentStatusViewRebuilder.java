@@ -0,0 +1,136 @@
+package com.example.payment_process.component;
+
+import com.example.payment_process.datasource.ShardContext;
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.model.Payment;
+import com.example.payment_process.model.Transaction;
+import com.example.payment_process.repository.PaymentRepository;
+import com.example.payment_process.repository.PaymentStatusViewRepository;
+import com.example.payment_process.repository.TransactionRepository;
+import com.example.payment_process.service.PaymentStatusProjector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Regenerates payment_status_view from payment/transaction in parallel id-range chunks, shard by shard.
+ * Run as a one-off command: {@code java -jar app.jar --rebuild-status-view}; the app exits when done.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentStatusViewRebuilder implements ApplicationRunner {
+
+    public static final String REBUILD_OPTION = "rebuild-status-view";
+
+    Logger log = Logger.getInstance();
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionRepository transactionRepository;
+    private final PaymentStatusViewRepository statusViewRepository;
+    private final PaymentStatusProjector statusProjector;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationContext applicationContext;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.status-view.rebuild-chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.status-view.rebuild-threads:4}")
+    private int threads;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(REBUILD_OPTION)) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        long rebuilt = rebuild();
+        log.msg("Rebuilt payment_status_view for " + rebuilt + " payments in "
+                + (System.currentTimeMillis() - started) + " ms");
+
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+
+    public long rebuild() {
+        long total = 0;
+        for (int shard : shardRouter.shards()) {
+            total += ShardContext.onShard(shard, this::rebuildShard);
+        }
+        return total;
+    }
+
+    private long rebuildShard() {
+        int shard = ShardContext.current();
+        Long minId = paymentRepository.findMinId();
+        Long maxId = paymentRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 1) One task per id range, each in its own transaction
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + chunkSize - 1, maxId);
+                chunks.add(executor.submit(() -> ShardContext.onShard(shard, () -> rebuildChunk(chunkFrom, chunkTo))));
+            }
+
+            // 2) Wait for all chunks, failing on the first error
+            long total = 0;
+            for (Future<Integer> chunk : chunks) {
+                total += chunk.get();
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Status view rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Status view rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int rebuildChunk(long fromId, long toId) {
+        Integer rebuilt = transactionTemplate.execute(status -> {
+            List<Payment> payments = paymentRepository.findByIdBetween(fromId, toId);
+            if (payments.isEmpty()) {
+                return 0;
+            }
+
+            // Latest transaction per payment, loaded for the whole chunk in one query
+            Map<Long, Transaction> latestByPayment = new HashMap<>();
+            for (Transaction tx : transactionRepository.findByPaymentIn(payments)) {
+                latestByPayment.merge(tx.getPayment().getId(), tx, PaymentStatusViewRebuilder::newer);
+            }
+
+            statusViewRepository.saveAll(payments.stream()
+                    .map(payment -> statusProjector.toView(payment, latestByPayment.get(payment.getId())))
+                    .toList());
+            return payments.size();
+        });
+        return rebuilt != null ? rebuilt : 0;
+    }
+
+    private static Transaction newer(Transaction a, Transaction b) {
+        Instant aCreated = a.getCreatedAt() != null ? a.getCreatedAt() : Instant.EPOCH;
+        Instant bCreated = b.getCreatedAt() != null ? b.getCreatedAt() : Instant.EPOCH;
+        return bCreated.isAfter(aCreated) ? b : a;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.payment_process.component;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.model.Payment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers payments written in the last few seconds so their status reads
+ * can be pinned to the primary instead of a possibly lagging replica.
+ * <p>
+ * The marker is a Redis key with a TTL of the lag window, so a write handled by one instance pins
+ * the next read on any instance. Writes made here are also kept locally, which answers this
+ * instance's own reads without a Redis round trip. If Redis is unreachable, reads go to the primary.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    Logger log = Logger.getInstance();
+
+    private static final String PREFIX = "ryw:";
+
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.datasource.routing.read-your-writes-ms:10000}")
+    private long windowMs;
+
+    public ReadYourWritesTracker(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void recordWrite(Payment payment) {
+        long expiresAt = System.currentTimeMillis() + windowMs;
+        if (payment.getUuid() != null) {
+            mark(payment.getUuid(), expiresAt);
+        }
+        if (payment.getId() != null) {
+            mark(idKey(payment.getId()), expiresAt);
+        }
+    }
+
+    public boolean wasRecentlyWritten(String paymentUuid) {
+        return isFresh(paymentUuid);
+    }
+
+    public boolean wasRecentlyWritten(Long paymentId) {
+        return paymentId != null && isFresh(idKey(paymentId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.read-your-writes-ms:10000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        recentWrites.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    private void mark(String key, long expiresAt) {
+        recentWrites.put(key, expiresAt);
+        try {
+            redisTemplate.opsForValue().set(PREFIX + key, "1", Duration.ofMillis(windowMs));
+        } catch (RuntimeException e) {
+            log.msg("Read-your-writes marker not shared for " + key + ": " + e.getMessage());
+        }
+    }
+
+    private boolean isFresh(String key) {
+        if (key == null) return false;
+        Long expiresAt = recentWrites.get(key);
+        if (expiresAt != null && expiresAt >= System.currentTimeMillis()) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(PREFIX + key));
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private static String idKey(Long paymentId) {
+        return "id:" + paymentId;
+    }
+}
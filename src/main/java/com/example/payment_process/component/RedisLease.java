@@ -0,0 +1,52 @@
+package com.example.payment_process.component;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cross-instance lease for scheduled work that must run on one pod at a time: SET NX PX with a
+ * random token. Renew and release only act while the caller's token is still the holder, so an
+ * instance whose lease expired (long GC pause) cannot extend or drop the next holder's lease.
+ */
+@Component
+public class RedisLease {
+
+    private static final String PREFIX = "lease:";
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLease(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    // The holder's token, or empty when another instance holds the lease
+    public Optional<String> tryAcquire(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(PREFIX + name, token, ttl);
+        return Boolean.TRUE.equals(acquired) ? Optional.of(token) : Optional.empty();
+    }
+
+    public boolean renew(String name, String token, Duration ttl) {
+        Long renewed = redisTemplate.execute(RENEW, List.of(PREFIX + name), token, String.valueOf(ttl.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    public void release(String name, String token) {
+        redisTemplate.execute(RELEASE, List.of(PREFIX + name), token);
+    }
+}
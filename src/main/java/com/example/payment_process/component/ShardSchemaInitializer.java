@@ -0,0 +1,56 @@
+package com.example.payment_process.component;
+
+import com.example.payment_process.datasource.ShardContext;
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.design.Logger;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hibernate's ddl-auto only sees the directory shard (0). Before traffic is admitted, copy the
+ * sharded tables' definitions from shard 0 to every other shard that does not have them yet.
+ * Shard 0's AUTO_INCREMENT is kept, so ids issued by a new shard are all above the ids of rows
+ * written before sharding was enabled (which stay on shard 0).
+ * Later column changes are not propagated and have to be applied to each shard.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardSchemaInitializer implements ApplicationRunner {
+
+    Logger log = Logger.getInstance();
+
+    // Parent tables first: transaction has a foreign key to payment
+    private static final List<String> SHARDED_TABLES = List.of("payment", "transaction", "payment_status_view", "payment_change_outbox",
+            "payment_list_version");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    public ShardSchemaInitializer(JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String table : SHARDED_TABLES) {
+            String ddl = ShardContext.onShard(ShardRouter.DIRECTORY_SHARD, () -> jdbcTemplate.queryForObject(
+                    "SHOW CREATE TABLE `" + table + "`", (rs, rowNum) -> rs.getString(2)));
+            String createIfMissing = ddl.replaceFirst("^CREATE TABLE", "CREATE TABLE IF NOT EXISTS");
+
+            for (int shard : shardRouter.shards()) {
+                if (shard == ShardRouter.DIRECTORY_SHARD) continue;
+                ShardContext.onShard(shard, () -> jdbcTemplate.execute(createIfMissing));
+            }
+        }
+        log.msg("Sharded tables present on " + shardRouter.shardCount() + " shards");
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.payment_process.component;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.repository.PaymentRepository;
+import com.example.payment_process.repository.PaymentStatusViewRepository;
+import com.example.payment_process.repository.TransactionRepository;
+import com.example.payment_process.service.IdempotencyService;
+import com.example.payment_process.service.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Exercises the hot request paths before the pod reports ready:
+ * webhook signature check + parsing (Stripe GSON models and our streaming parser),
+ * repository queries, the status lookup through the service proxies, Redis round trips
+ * and Jackson (de)serialization of the API DTOs.
+ * <p>
+ * Runs as the last ApplicationReadyEvent listener: after the listeners that create the archive
+ * and idempotency tables and load the price catalog (ordered HIGHEST_PRECEDENCE), and before
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC, which follows the ready event, so
+ * /actuator/health/readiness only turns UP once it completes. Failures are logged and never
+ * block startup.
+ */
+@Component
+public class StartupWarmup {
+
+    Logger log = Logger.getInstance();
+
+    private static final String WARMUP_PAYLOAD = """
+            {"id":"evt_warmup","object":"event","api_version":"2024-06-20","created":1724000000,
+             "data":{"object":{"id":"cs_warmup","object":"checkout.session","amount_total":1000,
+             "currency":"usd","mode":"payment","payment_status":"paid","status":"complete"}},
+             "livemode":false,"pending_webhooks":0,"request":{"id":null,"idempotency_key":null},
+             "type":"checkout.session.completed"}
+            """;
+
+    private final PaymentService paymentService;
+    private final PaymentRepository paymentRepository;
+    private final TransactionRepository transactionRepository;
+    private final PaymentStatusViewRepository statusViewRepository;
+    private final IdempotencyService idempotencyService;
+    private final StripeWebhookParser webhookParser;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.iterations:200}")
+    private int iterations;
+
+    @Value("${app.warmup.max-duration-ms:30000}")
+    private long maxDurationMs;
+
+    @Value("${stripe.api-webhook-secret}")
+    private String stripeWebhookSecret;
+
+    @Value("${stripe.webhook-tolerance-seconds:300}")
+    private long webhookToleranceSeconds;
+
+    public StartupWarmup(@Qualifier("idempotentStripeService") PaymentService paymentService,
+                         PaymentRepository paymentRepository, TransactionRepository transactionRepository,
+                         PaymentStatusViewRepository statusViewRepository, IdempotencyService idempotencyService,
+                         StripeWebhookParser webhookParser, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.paymentRepository = paymentRepository;
+        this.transactionRepository = transactionRepository;
+        this.statusViewRepository = statusViewRepository;
+        this.idempotencyService = idempotencyService;
+        this.webhookParser = webhookParser;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void run(ApplicationReadyEvent event) {
+        if (!enabled || new DefaultApplicationArguments(event.getArgs())
+                .containsOption(PaymentStatusViewRebuilder.REBUILD_OPTION)) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        long deadline = started + Duration.ofMillis(maxDurationMs).toNanos();
+        int failures = 0;
+        int done = 0;
+
+        for (; done < iterations && System.nanoTime() < deadline; done++) {
+            failures += step("webhook", this::warmWebhook);
+            failures += step("database", this::warmDatabase);
+            failures += step("redis", this::warmRedis);
+            failures += step("jackson", this::warmJackson);
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - started);
+        meterRegistry.timer("app.warmup.duration").record(took);
+        log.msg("Warm-up finished: " + done + " iterations in " + took.toMillis() + " ms, "
+                + failures + " failed steps");
+    }
+
+    private int step(String name, Runnable work) {
+        try {
+            work.run();
+            return 0;
+        } catch (RuntimeException e) {
+            log.msg("Warm-up step " + name + " failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // Synthetic signed event through both the Stripe SDK path and our pre-parser
+    private void warmWebhook() {
+        try {
+            long timestamp = Instant.now().getEpochSecond();
+            String signature = Webhook.Util.computeHmacSha256(stripeWebhookSecret, timestamp + "." + WARMUP_PAYLOAD);
+            String sigHeader = "t=" + timestamp + ",v1=" + signature;
+
+            Webhook.constructEvent(WARMUP_PAYLOAD, sigHeader, stripeWebhookSecret)
+                    .getDataObjectDeserializer().getObject();
+            Webhook.Signature.verifyHeader(WARMUP_PAYLOAD, sigHeader, stripeWebhookSecret, webhookToleranceSeconds);
+            webhookParser.parse(WARMUP_PAYLOAD);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Lookups for keys that do not exist: same query plans and proxies, no side effects
+    private void warmDatabase() {
+        String uuid = "warmup-" + UUID.randomUUID();
+        paymentRepository.findByUuid(uuid);
+        paymentRepository.findById(-1L);
+        transactionRepository.findByGatewayTransactionId(uuid);
+        statusViewRepository.findByUuid(uuid);
+        paymentRepository.findAll(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createdAt")));
+        paymentService.getPaymentStatus(uuid);
+        paymentService.getPaymentStatus(-1L);
+        paymentService.getPaymentStatusETag(uuid);
+        paymentService.listAllPaymentsETag();
+    }
+
+    private void warmRedis() {
+        String key = "warmup-" + UUID.randomUUID();
+        idempotencyService.getResponse(key);
+        idempotencyService.storeResponse(key, sampleResponse(null), Duration.ofSeconds(5));
+        idempotencyService.getResponse(key);
+    }
+
+    private void warmJackson() {
+        try {
+            String json = objectMapper.writeValueAsString(sampleResponse(Instant.now()));
+            objectMapper.readValue(json, PaymentResponse.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static PaymentResponse sampleResponse(Instant lastTransactionCreatedAt) {
+        return PaymentResponse.builder()
+                .success(true)
+                .paymentId("0")
+                .message("warm-up")
+                .paymentUuid("warmup")
+                .amount(1000L)
+                .currency("usd")
+                .status("CREATED")
+                .lastTransactionCreatedAt(lastTransactionCreatedAt)
+                .build();
+    }
+}
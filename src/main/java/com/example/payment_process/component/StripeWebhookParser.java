@@ -0,0 +1,98 @@
+package com.example.payment_process.component;
+
+import com.example.payment_process.dto.StripeWebhookEnvelope;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Streaming pre-parser for Stripe webhook payloads.
+ * Reads only {@code id}, {@code type}, {@code data.object.id} and
+ * {@code data.object.metadata.traceparent} and skips everything
+ * else without building Stripe model objects. Signature must be verified before calling this.
+ */
+@Component
+public class StripeWebhookParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public StripeWebhookEnvelope parse(String payload) {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Webhook payload is not a JSON object");
+            }
+
+            StripeWebhookEnvelope envelope = new StripeWebhookEnvelope();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> envelope.setId(readText(parser));
+                    case "type" -> envelope.setType(readText(parser));
+                    case "data" -> readDataObject(parser, envelope);
+                    default -> parser.skipChildren();
+                }
+            }
+            return envelope;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed webhook payload", e);
+        }
+    }
+
+    // data: { object: { id: ..., metadata: { traceparent: ... } } }
+    private void readDataObject(JsonParser parser, StripeWebhookEnvelope envelope) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("object".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                readObject(parser, envelope);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readObject(JsonParser parser, StripeWebhookEnvelope envelope) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (envelope.getObjectId() == null && "id".equals(field)) {
+                envelope.setObjectId(readText(parser));
+            } else if ("metadata".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                envelope.setTraceparent(readTraceparent(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private String readTraceparent(JsonParser parser) throws IOException {
+        String traceparent = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("traceparent".equals(field)) {
+                traceparent = readText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return traceparent;
+    }
+
+    private String readText(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.gateway.GatewayProperties;
+import com.example.payment_process.gateway.GatewayRouter;
+import com.example.payment_process.gateway.PaymentGateway;
+import com.example.payment_process.gateway.StripeGateway;
+import com.example.payment_process.tracing.PaymentTracing;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+public class GatewayConfig {
+
+    @Bean
+    public GatewayRouter gatewayRouter(GatewayProperties properties,
+                                       @Value("${stripe.api-key}") String stripeApiKey,
+                                       @Value("${stripe.api-webhook-secret}") String stripeWebhookSecret,
+                                       ObjectProvider<PaymentGateway> additionalGateways,
+                                       PaymentTracing tracing) {
+        List<PaymentGateway> gateways = new ArrayList<>();
+
+        // 1) Default Stripe account keeps the existing "STRIPE" gateway name
+        gateways.add(new StripeGateway(GatewayRouter.DEFAULT_GATEWAY, stripeApiKey, stripeWebhookSecret,
+                properties.getTimeoutMs(), tracing));
+
+        // 2) Extra Stripe accounts
+        properties.getAccounts().forEach((name, account) -> gateways.add(new StripeGateway(
+                GatewayRouter.DEFAULT_GATEWAY + "_" + name.toUpperCase(Locale.ROOT),
+                account.getApiKey(), account.getWebhookSecret(), properties.getTimeoutMs(), tracing)));
+
+        // 3) Any other PaymentGateway beans (e.g. local stub gateways)
+        additionalGateways.orderedStream().forEach(gateways::add);
+
+        return new GatewayRouter(gateways, properties);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.shedding.GradientLimit;
+import com.example.payment_process.shedding.LoadSheddingFilter;
+import com.example.payment_process.shedding.LoadSheddingProperties;
+import com.example.payment_process.shedding.PriorityConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(LoadSheddingProperties.class)
+@ConditionalOnProperty(prefix = "app.shedding", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LoadSheddingConfig {
+
+    @Bean
+    public PriorityConcurrencyLimiter priorityConcurrencyLimiter(LoadSheddingProperties properties) {
+        GradientLimit limit = new GradientLimit(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getRttTolerance(), properties.getSmoothing(),
+                properties.getLongWindow());
+        return new PriorityConcurrencyLimiter(limit, properties);
+    }
+
+    // Right after the HTTP observation filter (so shed requests are still traced), before Spring Security
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(PriorityConcurrencyLimiter limiter,
+                                                                        LoadSheddingProperties properties,
+                                                                        MeterRegistry meterRegistry) {
+        FilterRegistrationBean<LoadSheddingFilter> registration =
+                new FilterRegistrationBean<>(new LoadSheddingFilter(limiter, properties, meterRegistry));
+        registration.addUrlPatterns("/api/payment/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
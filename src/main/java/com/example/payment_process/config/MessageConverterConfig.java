@@ -0,0 +1,41 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.codec.PaymentProtobufHttpMessageConverter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary representations for service-to-service callers: {@code application/cbor} and
+ * {@code application/x-protobuf}, both without null fields. They are appended after the JSON
+ * converter, so JSON stays the answer to {@code Accept: *}{@code /*} and browser requests.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public MessageConverterConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Replace the default CBOR converter (nulls included) with one sharing Boot's Jackson settings
+        converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+
+        ObjectMapper cborMapper = objectMapperBuilder
+                .factory(new CBORFactory())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+        converters.add(new PaymentProtobufHttpMessageConverter());
+    }
+}
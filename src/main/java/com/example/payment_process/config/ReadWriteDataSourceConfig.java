@@ -0,0 +1,69 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.datasource.DataSourceRoute;
+import com.example.payment_process.datasource.ReadWriteRoutingDataSource;
+import com.example.payment_process.datasource.ReplicationLagGuard;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Primary + read replica pools behind a routing DataSource.
+ * Only active when app.datasource.replica.jdbc-url is set and sharding is off; otherwise Boot's single pool
+ * (or ShardingConfig) is used.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.datasource.replica.jdbc-url:}' != '' and !${app.sharding.enabled:false}")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicationLagGuard replicationLagGuard(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                   @Value("${app.datasource.routing.max-lag-seconds:5}") long maxLagSeconds) {
+        return new ReplicationLagGuard(replicaDataSource, maxLagSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicationLagGuard replicationLagGuard) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicationLagGuard);
+        routing.setTargetDataSources(Map.of(
+                DataSourceRoute.PRIMARY, primaryDataSource,
+                DataSourceRoute.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        // Defer connection fetch until the first statement, after readOnly is known
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -40,8 +40,10 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // 1) Allow Stripe webhook publicly (no auth)
                         .requestMatchers("/api/payment/webhook/stripe").permitAll()
+                        .requestMatchers("/api/payment/webhook/stripe/*").permitAll()
                         .requestMatchers("/api/payment/status/**").permitAll()
                         .requestMatchers("/api/payment/list/**").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
 
                         // 2) All other /api/payment/** still require auth
                         .requestMatchers("/api/payment/**").authenticated()
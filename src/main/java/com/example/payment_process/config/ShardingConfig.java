@@ -0,0 +1,62 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.datasource.ShardRoutingDataSource;
+import com.example.payment_process.datasource.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash sharding of payment / transaction / payment_status_view over app.sharding.shards.
+ * Without app.sharding.enabled=true there is a single shard on Boot's own pool.
+ * Replaces the read-replica routing (ReadWriteDataSourceConfig) when enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        int shardCount = properties.isEnabled() ? properties.getShards().size() : 1;
+        return new ShardRouter(shardCount, properties.isEnabled() ? properties.getIdStride() : 1,
+                properties.isDirectoryFallback());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + i);
+            pool.setJdbcUrl(shard.getJdbcUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            // Interleaved AUTO_INCREMENT: ids of shard i are i+1, i+1+stride, ... so the id names its shard
+            pool.setConnectionInitSql("SET SESSION auto_increment_increment = " + properties.getIdStride()
+                    + ", auto_increment_offset = " + (i + 1));
+            pools.add(pool);
+        }
+        return new ShardRoutingDataSource(pools);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public DataSource dataSource(@Qualifier("shardRoutingDataSource") ShardRoutingDataSource shardRoutingDataSource) {
+        // Defer connection fetch until the first statement, after the shard is bound
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.payment_process.config;
+
+import com.example.payment_process.tracing.TailSamplingSpanProcessor;
+import com.example.payment_process.tracing.TracingStripeHttpClient;
+import com.stripe.net.ApiResource;
+import com.stripe.net.LiveStripeResponseGetter;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    // Picked up by the OpenTelemetry SdkTracerProvider; Boot's own OTLP exporter stays off
+    // (no management.otlp.tracing.endpoint) so only tail-sampled traces leave the process
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "app.tracing.otlp", name = "endpoint")
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(
+            @Value("${app.tracing.otlp.endpoint}") String endpoint,
+            @Value("${app.tracing.tail.latency-threshold-ms:1000}") long latencyThresholdMs,
+            @Value("${app.tracing.tail.baseline-ratio:0.01}") double baselineRatio,
+            @Value("${app.tracing.tail.decision-wait-ms:30000}") long decisionWaitMs,
+            @Value("${app.tracing.tail.max-buffered-traces:10000}") int maxBufferedTraces) {
+        OtlpHttpSpanExporter exporter = OtlpHttpSpanExporter.builder()
+                .setEndpoint(endpoint)
+                .build();
+        return new TailSamplingSpanProcessor(BatchSpanProcessor.builder(exporter).build(),
+                latencyThresholdMs, baselineRatio, decisionWaitMs, maxBufferedTraces);
+    }
+
+    // Every stripe-java call (PaymentIntent, Session, Price) goes through the global response getter
+    @Bean
+    public TracingStripeHttpClient tracingStripeHttpClient(ObservationRegistry observationRegistry,
+                                                           Tracer tracer, Propagator propagator) {
+        TracingStripeHttpClient client = new TracingStripeHttpClient(observationRegistry, tracer, propagator);
+        ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter(client));
+        return client;
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.payment_process.controller;
 
 import com.example.payment_process.component.ResolveFrontendBaseUrl;
+import com.example.payment_process.dto.AuditRecord;
 import com.example.payment_process.dto.OrderRequest;
+import com.example.payment_process.dto.PaymentChangeBatch;
 import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.dto.PaymentStats;
 import com.example.payment_process.dto.PaymentSummary;
+import com.example.payment_process.dto.RollupGranularity;
+import com.example.payment_process.feed.ChangeCursor;
+import com.example.payment_process.feed.PaymentChangeFeed;
+import com.example.payment_process.feed.PaymentChangeNotifier;
+import com.example.payment_process.gateway.GatewayRouter;
+import com.example.payment_process.journal.PaymentJournal;
 import com.example.payment_process.model.Payment;
 import com.example.payment_process.model.Transaction;
 import com.example.payment_process.repository.PaymentRepository;
 import com.example.payment_process.repository.TransactionRepository;
+import com.example.payment_process.service.PaymentRollupService;
 import com.example.payment_process.service.PaymentService;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
@@ -21,12 +31,21 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,13 +59,35 @@ public class PaymentController {
     private final PaymentRepository paymentRepository;
     private final TransactionRepository transactionRepository;
     private final ResolveFrontendBaseUrl resolveFrontendBaseUrl;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentJournal paymentJournal;
+    private final PaymentChangeFeed changeFeed;
+    private final PaymentChangeNotifier changeNotifier;
+
+    private static final Duration MAX_STATS_RANGE = Duration.ofDays(400);
+
+    @Value("${app.changes.max-batch:1000}")
+    private int maxChangeBatch;
+
+    @Value("${app.changes.long-poll-ms:25000}")
+    private long maxChangeWaitMs;
+
+    // Pod name under the StatefulSet; tells audit clients whose journal answered
+    @Value("${HOSTNAME:local}")
+    private String instanceName;
 
     public PaymentController(@Qualifier("idempotentStripeService") PaymentService stripeService, PaymentRepository paymentRepository,
-                             TransactionRepository transactionRepository,ResolveFrontendBaseUrl resolveFrontendBaseUrl) {
+                             TransactionRepository transactionRepository,ResolveFrontendBaseUrl resolveFrontendBaseUrl,
+                             PaymentRollupService paymentRollupService, PaymentJournal paymentJournal,
+                             PaymentChangeFeed changeFeed, PaymentChangeNotifier changeNotifier) {
         this.stripeService = stripeService;
         this.paymentRepository = paymentRepository;
         this.transactionRepository = transactionRepository;
         this.resolveFrontendBaseUrl=resolveFrontendBaseUrl;
+        this.paymentRollupService=paymentRollupService;
+        this.paymentJournal=paymentJournal;
+        this.changeFeed=changeFeed;
+        this.changeNotifier=changeNotifier;
     }
 
     @PostMapping("/create")
@@ -84,14 +125,113 @@ public class PaymentController {
         return ResponseEntity.ok("");
     }
 
+    // Webhooks from additional Stripe accounts (app.gateway.accounts.<account>)
+    @PostMapping("/webhook/stripe/{account}")
+    public ResponseEntity<String> handleStripeAccountWebhook(
+            @PathVariable String account,
+            @RequestHeader("Stripe-Signature") String sigHeader,
+            @RequestBody String payload) {
+
+        stripeService.handleWebhook(GatewayRouter.DEFAULT_GATEWAY + "_" + account.toUpperCase(Locale.ROOT),
+                sigHeader, payload);
+        return ResponseEntity.ok("");
+    }
+
     @GetMapping("/status/{paymentUuid}")
-    public ResponseEntity<PaymentResponse>getPaymentStatus(@PathVariable String paymentUuid) {
+    public ResponseEntity<PaymentResponse>getPaymentStatus(@PathVariable String paymentUuid, ServletWebRequest webRequest) {
+        // Version lookup only; the response is built only when the client's copy is stale
+        Optional<String> etag = stripeService.getPaymentStatusETag(paymentUuid);
+        if (etag.isPresent() && notModified(webRequest, etag.get())) {
+            return null;
+        }
         PaymentResponse response =stripeService.getPaymentStatus(paymentUuid);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/list")
-    public ResponseEntity<List<PaymentSummary>>listAllPayments() {
+    public ResponseEntity<List<PaymentSummary>>listAllPayments(ServletWebRequest webRequest) {
+        if (notModified(webRequest, stripeService.listAllPaymentsETag())) {
+            return null;
+        }
         return ResponseEntity.ok(stripeService.listAllPayments());
     }
+
+    // Every state transition of one payment recorded by this instance's audit journal (journals are per pod).
+    // Through the load-balanced Service this is one pod's part; query each pod via backend-headless for all of it
+    @GetMapping("/audit/{paymentUuid}")
+    public ResponseEntity<List<AuditRecord>>getPaymentAudit(@PathVariable String paymentUuid) {
+        return ResponseEntity.ok()
+                .header("X-Journal-Instance", instanceName)
+                .body(paymentJournal.history(paymentUuid));
+    }
+
+    // Pre-aggregated volume per currency/status/bucket; defaults to the last 24 hours
+    @GetMapping("/stats")
+    public ResponseEntity<PaymentStats>getPaymentStats(@RequestParam(required = false) Instant from,
+                                                       @RequestParam(required = false) Instant to,
+                                                       @RequestParam(defaultValue = "HOUR") RollupGranularity granularity) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(24));
+        if (start.isAfter(end) || Duration.between(start, end).compareTo(MAX_STATS_RANGE) > 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(paymentRollupService.stats(start, end, granularity));
+    }
+
+    // Ordered change feed: changes after the cursor, long-polling up to waitMs when there are none yet
+    @GetMapping("/changes")
+    public DeferredResult<PaymentChangeBatch>getChanges(@RequestParam(required = false) String since,
+                                                        @RequestParam(defaultValue = "100") int limit,
+                                                        @RequestParam(defaultValue = "0") long waitMs) {
+        ChangeCursor cursor;
+        try {
+            cursor = ChangeCursor.parse(since, changeFeed.partitions());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int batch = changeBatch(limit);
+        return changeNotifier.await(() -> changeFeed.read(cursor, batch),
+                () -> PaymentChangeBatch.builder().changes(List.of()).cursor(cursor.toString()).build(),
+                changeWait(waitMs));
+    }
+
+    // Consumer-group read: Redis keeps the group's offset; unacknowledged changes are delivered again
+    @GetMapping("/changes/groups/{group}")
+    public DeferredResult<PaymentChangeBatch>getGroupChanges(@PathVariable String group,
+                                                             @RequestParam String consumer,
+                                                             @RequestParam(defaultValue = "100") int limit,
+                                                             @RequestParam(defaultValue = "0") long waitMs) {
+        int batch = changeBatch(limit);
+        return changeNotifier.await(() -> changeFeed.readGroup(group, consumer, batch),
+                () -> PaymentChangeBatch.builder().changes(List.of()).build(),
+                changeWait(waitMs));
+    }
+
+    @PostMapping("/changes/groups/{group}/ack")
+    public ResponseEntity<Map<String, Long>>ackGroupChanges(@PathVariable String group, @RequestBody List<String> changeIds) {
+        try {
+            return ResponseEntity.ok(Map.of("acknowledged", changeFeed.ack(group, changeIds)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private int changeBatch(int limit) {
+        return Math.max(1, Math.min(limit, maxChangeBatch));
+    }
+
+    private long changeWait(long waitMs) {
+        return Math.max(0, Math.min(waitMs, maxChangeWaitMs));
+    }
+
+    // Sets the ETag and "revalidate every time" caching; true when a 304 has already been written.
+    // The body is JSON, CBOR or protobuf depending on Accept: one version tag for all of them is only
+    // valid as a weak validator (same data, different bytes), and caches must key on Accept too
+    private static boolean notModified(ServletWebRequest webRequest, String etag) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return webRequest.checkNotModified("W/" + etag);
+    }
 }
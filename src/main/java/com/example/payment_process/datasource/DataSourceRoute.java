@@ -0,0 +1,6 @@
+package com.example.payment_process.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
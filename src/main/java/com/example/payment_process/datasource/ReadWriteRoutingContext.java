@@ -0,0 +1,33 @@
+package com.example.payment_process.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound override that pins reads to the primary, e.g. for read-your-writes.
+ * Only effective before the first statement of the transaction (connections are fetched lazily).
+ */
+public final class ReadWriteRoutingContext {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadWriteRoutingContext() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PINNED_TO_PRIMARY.remove();
+            } else {
+                PINNED_TO_PRIMARY.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.payment_process.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} service methods to the replica while it is
+ * within the lag limit; everything else goes to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy so the route is picked after the
+ * transaction's read-only flag is bound.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    // Spring Data's own read-only defaults (e.g. findById outside a service transaction)
+    private static final String REPOSITORY_TX_PREFIX = "org.springframework.data.";
+
+    private final ReplicationLagGuard lagGuard;
+
+    public ReadWriteRoutingDataSource(ReplicationLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadWriteRoutingContext.isPinnedToPrimary()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (isServiceReadOnlyTransaction() && lagGuard.isReplicaUsable()) {
+            return DataSourceRoute.REPLICA;
+        }
+        return DataSourceRoute.PRIMARY;
+    }
+
+    private static boolean isServiceReadOnlyTransaction() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+        return txName != null && !txName.startsWith(REPOSITORY_TX_PREFIX);
+    }
+}
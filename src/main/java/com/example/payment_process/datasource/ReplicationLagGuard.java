@@ -0,0 +1,75 @@
+package com.example.payment_process.datasource;
+
+import com.example.payment_process.design.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Polls {@code SHOW REPLICA STATUS} on the replica pool and marks the replica unusable
+ * while it is stopped, unreachable or further behind than the configured limit.
+ * The replica user needs the REPLICATION CLIENT privilege.
+ */
+public class ReplicationLagGuard {
+
+    Logger log = Logger.getInstance();
+
+    private final DataSource replicaDataSource;
+    private final long maxLagSeconds;
+
+    // Start on the primary until the first check has run
+    private volatile boolean replicaUsable = false;
+    private volatile long lastLagSeconds = -1;
+
+    public ReplicationLagGuard(DataSource replicaDataSource, long maxLagSeconds) {
+        this.replicaDataSource = replicaDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.lag-check-ms:5000}")
+    public void checkLag() {
+        boolean usable;
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+
+            if (!rs.next()) {
+                // Not configured as a replica (e.g. local dev pointing at the primary)
+                lastLagSeconds = 0;
+                usable = true;
+            } else {
+                long lag = rs.getLong("Seconds_Behind_Source");
+                if (rs.wasNull()) {
+                    // Replication threads stopped
+                    lastLagSeconds = -1;
+                    usable = false;
+                } else {
+                    lastLagSeconds = lag;
+                    usable = lag <= maxLagSeconds;
+                }
+            }
+        } catch (SQLException e) {
+            log.msg("Replica lag check failed, routing reads to primary: " + e.getMessage());
+            lastLagSeconds = -1;
+            usable = false;
+        }
+
+        if (usable != replicaUsable) {
+            log.msg("Replica " + (usable ? "back in" : "taken out of") + " read rotation, lag="
+                    + lastLagSeconds + "s");
+        }
+        replicaUsable = usable;
+    }
+}
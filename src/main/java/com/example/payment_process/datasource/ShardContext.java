@@ -0,0 +1,42 @@
+package com.example.payment_process.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound shard for the ShardRoutingDataSource; unset means the directory shard (0).
+ * Like ReadWriteRoutingContext it must be set before the transaction's first statement:
+ * a transaction keeps the connection it started on.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = SHARD.get();
+        return shard != null ? shard : ShardRouter.DIRECTORY_SHARD;
+    }
+
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    public static void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
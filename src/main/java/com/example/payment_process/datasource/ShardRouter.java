@@ -0,0 +1,125 @@
+package com.example.payment_process.datasource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Shard placement for payments and their transactions.
+ * <ul>
+ *   <li>A payment lives on shard hash(uuid) mod shardCount, together with its transactions and status view row.</li>
+ *   <li>Every shard hands out ids with auto_increment_increment = idStride and auto_increment_offset = shard + 1,
+ *       so the shard of any payment or transaction id is (id - 1) mod idStride.</li>
+ *   <li>Shard 0 doubles as the directory: global tables (rollups, prices, gateway_shard_index) live there.</li>
+ *   <li>Payments written before sharding was enabled stay on shard 0. Their uuids hash and their ids
+ *       (stride 1) decode to arbitrary shards, so lookups try {@link #lookupShards} in turn. New shards
+ *       start their AUTO_INCREMENT at shard 0's (ShardSchemaInitializer), so no new id repeats an old one.</li>
+ * </ul>
+ * With a single shard everything maps to 0 and the routing calls are no-ops.
+ */
+public class ShardRouter {
+
+    public static final int DIRECTORY_SHARD = 0;
+
+    private final int shardCount;
+    private final int idStride;
+    private final boolean directoryFallback;
+
+    public ShardRouter(int shardCount, int idStride) {
+        this(shardCount, idStride, true);
+    }
+
+    public ShardRouter(int shardCount, int idStride, boolean directoryFallback) {
+        if (shardCount < 1 || idStride < shardCount) {
+            throw new IllegalArgumentException("Need 1 <= shards <= id stride, got " + shardCount + " / " + idStride);
+        }
+        this.shardCount = shardCount;
+        this.idStride = idStride;
+        this.directoryFallback = directoryFallback;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int[] shards() {
+        return IntStream.range(0, shardCount).toArray();
+    }
+
+    public int shardForUuid(String uuid) {
+        if (!isSharded()) return DIRECTORY_SHARD;
+        return (int) Long.remainderUnsigned(fnv1a64(uuid), shardCount);
+    }
+
+    // Ids from before sharding (stride 1) decode to arbitrary shards; lookupShards covers them
+    public int shardForId(long id) {
+        if (!isSharded() || id < 1) return DIRECTORY_SHARD;
+        int shard = (int) ((id - 1) % idStride);
+        return shard < shardCount ? shard : DIRECTORY_SHARD;
+    }
+
+    // Where to look for a payment that hashes or decodes to owner: owner, then the directory shard
+    public int[] lookupShards(int owner) {
+        if (!directoryFallback || owner == DIRECTORY_SHARD) {
+            return new int[]{owner};
+        }
+        return new int[]{owner, DIRECTORY_SHARD};
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return ShardContext.onShard(shard, work);
+    }
+
+    /**
+     * Runs the query for every shard and merges the per-shard results, each already sorted by order, into one list.
+     */
+    public <T> List<T> mergeSorted(IntFunction<List<T>> perShardQuery, Comparator<? super T> order) {
+        List<List<T>> results = new ArrayList<>(shardCount);
+        for (int shard : shards()) {
+            results.add(perShardQuery.apply(shard));
+        }
+        return mergeSorted(results, order);
+    }
+
+    // k-way merge with a heap of per-list cursors: O(n log k)
+    public static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<? super T> order) {
+        if (sortedLists.size() == 1) return sortedLists.get(0);
+
+        record Cursor<T>(List<T> list, int index) {
+            T head() {
+                return list.get(index);
+            }
+        }
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        int total = 0;
+        for (List<T> list : sortedLists) {
+            total += list.size();
+            if (!list.isEmpty()) heap.add(new Cursor<>(list, 0));
+        }
+
+        List<T> merged = new ArrayList<>(total);
+        while (!heap.isEmpty()) {
+            Cursor<T> cursor = heap.poll();
+            merged.add(cursor.head());
+            if (cursor.index() + 1 < cursor.list().size()) {
+                heap.add(new Cursor<>(cursor.list(), cursor.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
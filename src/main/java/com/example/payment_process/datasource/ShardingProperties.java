@@ -0,0 +1,34 @@
+package com.example.payment_process.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * app.sharding.* settings. shards[0] is the directory shard; when sharding is off the regular
+ * spring.datasource pool is the only shard.
+ */
+@Data
+@ConfigurationProperties("app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Upper bound for the number of shards; fixed once ids have been handed out
+    private int idStride = 16;
+
+    // Look on the directory shard after a miss: rows from before sharding was enabled were never moved
+    private boolean directoryFallback = true;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.payment_process.design;
 
+import org.slf4j.MDC;
+
 public class Logger {
     private static volatile Logger instance=null;
     private Logger(){}
@@ -16,9 +18,15 @@ public class Logger {
     }
 
     public void info(String message, String key) {
-        System.out.println("[LOG]=====>" + message+ "[LOG]=====>"+key);
+        System.out.println(trace() + "[LOG]=====>" + message+ "[LOG]=====>"+key);
     }
     public void msg(String message) {
-        System.out.println("[LOG]=====>" + message);
+        System.out.println(trace() + "[LOG]=====>" + message);
+    }
+
+    // traceId/spanId put in the MDC by Micrometer Tracing for the current span
+    private static String trace() {
+        String traceId = MDC.get("traceId");
+        return traceId == null ? "" : "[" + traceId + "," + MDC.get("spanId") + "]";
     }
 }
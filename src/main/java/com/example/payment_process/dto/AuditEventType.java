@@ -0,0 +1,10 @@
+package com.example.payment_process.dto;
+
+/**
+ * Payment state transitions recorded in the audit journal. Stored by ordinal: only append new values.
+ */
+public enum AuditEventType {
+    PAYMENT_CREATED,
+    GATEWAY_RESULT,
+    WEBHOOK_UPDATE
+}
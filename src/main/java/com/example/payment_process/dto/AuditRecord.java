@@ -0,0 +1,24 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditRecord {
+
+    private long sequence;
+    private Instant timestamp;
+    private AuditEventType event;
+    private String paymentUuid;
+    private String status;
+    private Long amount;
+    private String currency;
+    private String gatewayReference;
+}
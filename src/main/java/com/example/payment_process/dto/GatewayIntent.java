@@ -0,0 +1,18 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GatewayIntent {
+
+    private String gateway;
+    private String id;
+    private String clientSecret;
+    private String status;
+}
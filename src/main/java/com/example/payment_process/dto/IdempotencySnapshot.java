@@ -0,0 +1,21 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A stored idempotent result (PaymentResponse JSON or checkout URL) and the end of its retention.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencySnapshot {
+
+    private String value;
+    private Instant expiresAt;
+}
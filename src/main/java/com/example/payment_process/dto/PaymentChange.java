@@ -0,0 +1,30 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the payment change feed. id is "&lt;partition&gt;:&lt;stream id&gt;" and is what a
+ * consumer group acknowledges; timestamp is the time the entry was added to the stream. sequence
+ * identifies the change itself: a change delivered twice (relay retry) has the same sequence.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentChange {
+
+    private String id;
+    private Long sequence;
+    private Instant timestamp;
+    private AuditEventType event;
+    private String paymentUuid;
+    private String status;
+    private Long amount;
+    private String currency;
+    private String gatewayReference;
+}
@@ -0,0 +1,22 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes in stream order plus the cursor to pass as {@code since} for the next batch
+ * (unchanged when the batch is empty). Consumer-group reads have no cursor: the group keeps the offsets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentChangeBatch {
+
+    private List<PaymentChange> changes;
+    private String cursor;
+}
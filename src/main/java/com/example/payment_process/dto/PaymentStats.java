@@ -0,0 +1,21 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStats {
+
+    private Instant from;
+    private Instant to;
+    private RollupGranularity granularity;
+    private List<PaymentStatsBucket> buckets;
+}
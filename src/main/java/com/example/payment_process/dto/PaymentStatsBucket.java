@@ -0,0 +1,21 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStatsBucket {
+
+    private Instant bucketStart;
+    private String currency;
+    private String status;
+    private long count;
+    private long amount;
+}
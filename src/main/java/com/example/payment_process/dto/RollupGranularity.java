@@ -0,0 +1,6 @@
+package com.example.payment_process.dto;
+
+public enum RollupGranularity {
+    HOUR,
+    DAY
+}
@@ -0,0 +1,22 @@
+package com.example.payment_process.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The few fields of a Stripe event we need for routing: event id, event type,
+ * the id of the object in {@code data.object} and the traceparent from its metadata.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripeWebhookEnvelope {
+
+    private String id;
+    private String type;
+    private String objectId;
+    private String traceparent;
+}
@@ -0,0 +1,62 @@
+package com.example.payment_process.feed;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Read position in the partitioned change feed: the last stream id seen on each partition,
+ * written as a comma-separated list ("1718000000000-0,0-0,..."). Blank means "from the oldest
+ * retained change". A cursor only fits the partition count it was issued for.
+ */
+public final class ChangeCursor {
+
+    static final String START = "0-0";
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+-\\d+");
+
+    private final String[] lastIds;
+
+    private ChangeCursor(String[] lastIds) {
+        this.lastIds = lastIds;
+    }
+
+    public static ChangeCursor start(int partitions) {
+        String[] ids = new String[partitions];
+        Arrays.fill(ids, START);
+        return new ChangeCursor(ids);
+    }
+
+    public static ChangeCursor parse(String cursor, int partitions) {
+        if (cursor == null || cursor.isBlank()) {
+            return start(partitions);
+        }
+        String[] ids = cursor.split(",", -1);
+        if (ids.length != partitions) {
+            throw new IllegalArgumentException("Cursor has " + ids.length + " partitions, feed has " + partitions);
+        }
+        for (String id : ids) {
+            if (!STREAM_ID.matcher(id).matches()) {
+                throw new IllegalArgumentException("Malformed cursor position " + id);
+            }
+        }
+        return new ChangeCursor(ids);
+    }
+
+    public int partitions() {
+        return lastIds.length;
+    }
+
+    public String lastId(int partition) {
+        return lastIds[partition];
+    }
+
+    public ChangeCursor advance(int partition, String streamId) {
+        String[] ids = lastIds.clone();
+        ids[partition] = streamId;
+        return new ChangeCursor(ids);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", lastIds);
+    }
+}
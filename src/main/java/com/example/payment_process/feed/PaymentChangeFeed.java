@@ -0,0 +1,319 @@
+package com.example.payment_process.feed;
+
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.AuditEventType;
+import com.example.payment_process.dto.PaymentChange;
+import com.example.payment_process.dto.PaymentChangeBatch;
+import com.example.payment_process.model.PaymentChangeOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordered feed of payment changes (created, gateway result, webhook success) on Redis Streams.
+ * Changes arrive from the transactional outbox through {@link PaymentChangeRelay}, at least once;
+ * each carries its outbox sequence so consumers can drop a redelivery.
+ * <p>
+ * Changes go to one of app.changes.partitions streams chosen by payment uuid, so all changes of
+ * one payment stay in order on one stream while writes spread over several keys. Readers either
+ * pass a {@link ChangeCursor} (stateless, position kept by the client) or read through a consumer
+ * group, where Redis keeps the offsets and redelivers unacknowledged changes. Entries are compact:
+ * one-letter field names, nulls omitted, the timestamp taken from the stream id. Streams are
+ * trimmed by age (XTRIM MINID), not length, so a consumer that is down for less than the retention
+ * never misses a change.
+ */
+@Service
+public class PaymentChangeFeed {
+
+    Logger log = Logger.getInstance();
+
+    public static final String STREAM_PREFIX = "payments:changes:";
+
+    private static final String SEQUENCE = "q";
+    private static final String UUID = "u";
+    private static final String EVENT = "e";
+    private static final String STATUS = "s";
+    private static final String AMOUNT = "a";
+    private static final String CURRENCY = "c";
+    private static final String REFERENCE = "r";
+
+    // Stream order: ms, then sequence, then partition for ties across streams
+    private static final Comparator<PaymentChange> STREAM_ORDER = Comparator
+            .comparing((PaymentChange change) -> RecordId.of(streamId(change.getId())).getTimestamp())
+            .thenComparing(change -> RecordId.of(streamId(change.getId())).getSequence())
+            .thenComparing(change -> partitionOfId(change.getId()));
+
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> knownGroups = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.changes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.changes.partitions:4}")
+    private int partitions;
+
+    @Value("${app.changes.retention-hours:72}")
+    private long retentionHours;
+
+    public PaymentChangeFeed(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    // String.hashCode is specified, so every instance picks the same partition
+    public int partitionOf(String paymentUuid) {
+        return Math.floorMod(paymentUuid.hashCode(), partitions);
+    }
+
+    // Appends one committed change to its partition's stream; failures propagate to the relay
+    public void append(PaymentChangeOutbox change) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(SEQUENCE, String.valueOf(change.getId()));
+        fields.put(UUID, change.getPaymentUuid());
+        fields.put(EVENT, change.getEvent().name());
+        putIfPresent(fields, STATUS, change.getStatus());
+        putIfPresent(fields, AMOUNT, change.getAmount() != null ? String.valueOf(change.getAmount()) : null);
+        putIfPresent(fields, CURRENCY, change.getCurrency());
+        putIfPresent(fields, REFERENCE, change.getGatewayReference());
+
+        redisTemplate.opsForStream().add(StreamRecords.string(fields)
+                .withStreamKey(streamKey(partitionOf(change.getPaymentUuid()))));
+    }
+
+    /**
+     * Up to {@code limit} changes after the cursor, in stream order, and the cursor after them.
+     */
+    public PaymentChangeBatch read(ChangeCursor cursor, int limit) {
+        List<List<PaymentChange>> perPartition = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            perPartition.add(toChanges(partition, redisTemplate.opsForStream().read(
+                    StreamReadOptions.empty().count(limit),
+                    toArray(List.of(StreamOffset.create(streamKey(partition), ReadOffset.from(cursor.lastId(partition))))))));
+        }
+        return batch(cursor, perPartition, limit);
+    }
+
+    // Merges per-partition reads into stream order, keeps the first limit and moves the cursor past exactly those
+    static PaymentChangeBatch batch(ChangeCursor cursor, List<List<PaymentChange>> perPartition, int limit) {
+        List<PaymentChange> merged = ShardRouter.mergeSorted(perPartition, STREAM_ORDER);
+        List<PaymentChange> batch = merged.size() > limit ? merged.subList(0, limit) : merged;
+
+        ChangeCursor next = cursor;
+        for (PaymentChange change : batch) {
+            next = next.advance(partitionOfId(change.getId()), streamId(change.getId()));
+        }
+        return PaymentChangeBatch.builder()
+                .changes(List.copyOf(batch))
+                .cursor(next.toString())
+                .build();
+    }
+
+    /**
+     * Next changes for one consumer of a group: first whatever was delivered to it and not yet
+     * acknowledged (e.g. before a crash), otherwise new changes. Everything returned stays pending
+     * until {@link #ack}.
+     */
+    public PaymentChangeBatch readGroup(String group, String consumer, int limit) {
+        int perPartitionLimit = Math.max(1, limit / partitions);
+
+        List<PaymentChange> pending = readGroup(group, consumer, perPartitionLimit, ReadOffset.from(ChangeCursor.START));
+        List<PaymentChange> changes = pending.isEmpty()
+                ? readGroup(group, consumer, perPartitionLimit, ReadOffset.lastConsumed())
+                : pending;
+        return PaymentChangeBatch.builder()
+                .changes(changes)
+                .build();
+    }
+
+    public long ack(String group, List<String> changeIds) {
+        Map<Integer, List<String>> byPartition = new LinkedHashMap<>();
+        for (String id : changeIds) {
+            byPartition.computeIfAbsent(partitionOfId(id), p -> new ArrayList<>()).add(streamId(id));
+        }
+
+        long acknowledged = 0;
+        for (Map.Entry<Integer, List<String>> entry : byPartition.entrySet()) {
+            Long count = redisTemplate.opsForStream().acknowledge(streamKey(entry.getKey()), group,
+                    entry.getValue().toArray(String[]::new));
+            acknowledged += count != null ? count : 0;
+        }
+        return acknowledged;
+    }
+
+    // Newest id per partition, the starting point for watching
+    public ChangeCursor latest() {
+        ChangeCursor cursor = ChangeCursor.start(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            List<MapRecord<String, Object, Object>> newest = redisTemplate.opsForStream()
+                    .reverseRange(streamKey(partition), Range.unbounded(), Limit.limit().count(1));
+            if (newest != null && !newest.isEmpty()) {
+                cursor = cursor.advance(partition, newest.get(0).getId().getValue());
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * Blocks up to {@code timeout} until any partition has entries after {@code cursor}; returns the
+     * cursor past what arrived (the same cursor on timeout). One XREAD over all partitions.
+     */
+    public ChangeCursor awaitChanges(ChangeCursor cursor, Duration timeout) {
+        StreamOffset<String>[] offsets = offsets(cursor);
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                StreamReadOptions.empty().count(100).block(timeout), offsets);
+
+        ChangeCursor next = cursor;
+        if (records != null) {
+            for (MapRecord<String, Object, Object> record : records) {
+                next = next.advance(partitionOfKey(record.getStream()), record.getId().getValue());
+            }
+        }
+        return next;
+    }
+
+    // XTRIM MINID ~ <now - retention>: drops whole radix-tree nodes older than the retention
+    @Scheduled(fixedDelayString = "${app.changes.trim-interval-ms:60000}")
+    public void trim() {
+        if (!enabled) return;
+        String minId = Instant.now().minus(Duration.ofHours(retentionHours)).toEpochMilli() + "-0";
+        for (int partition = 0; partition < partitions; partition++) {
+            byte[] key = streamKey(partition).getBytes(StandardCharsets.UTF_8);
+            try {
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("XTRIM",
+                        key, bytes("MINID"), bytes("~"), bytes(minId)));
+            } catch (RuntimeException e) {
+                log.msg("Change feed trim failed on partition " + partition + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private List<PaymentChange> readGroup(String group, String consumer, int perPartitionLimit, ReadOffset offset) {
+        List<List<PaymentChange>> perPartition = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            ensureGroup(partition, group);
+            perPartition.add(toChanges(partition, redisTemplate.opsForStream().read(
+                    Consumer.from(group, consumer),
+                    StreamReadOptions.empty().count(perPartitionLimit),
+                    toArray(List.of(StreamOffset.create(streamKey(partition), offset))))));
+        }
+        return ShardRouter.mergeSorted(perPartition, STREAM_ORDER);
+    }
+
+    // New groups start at the oldest retained change; MKSTREAM so a group can exist before any traffic
+    private void ensureGroup(int partition, String group) {
+        String key = streamKey(partition);
+        if (knownGroups.contains(key + "/" + group)) return;
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> createGroup(connection, key, group));
+        } catch (RedisSystemException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        knownGroups.add(key + "/" + group);
+    }
+
+    private static Object createGroup(RedisConnection connection, String key, String group) {
+        return connection.streamCommands().xGroupCreate(key.getBytes(StandardCharsets.UTF_8), group,
+                ReadOffset.from(ChangeCursor.START), true);
+    }
+
+    private StreamOffset<String>[] offsets(ChangeCursor cursor) {
+        List<StreamOffset<String>> offsets = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            offsets.add(StreamOffset.create(streamKey(partition), ReadOffset.from(cursor.lastId(partition))));
+        }
+        return toArray(offsets);
+    }
+
+    // The stream read methods take varargs of a generic type; passing an array avoids creating one at each call
+    @SuppressWarnings("unchecked")
+    private static StreamOffset<String>[] toArray(List<StreamOffset<String>> offsets) {
+        return offsets.toArray(new StreamOffset[0]);
+    }
+
+    private static List<PaymentChange> toChanges(int partition, List<MapRecord<String, Object, Object>> records) {
+        if (records == null || records.isEmpty()) return List.of();
+        List<PaymentChange> changes = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> fields = record.getValue();
+            String amount = text(fields.get(AMOUNT));
+            String sequence = text(fields.get(SEQUENCE));
+            changes.add(PaymentChange.builder()
+                    .id(partition + ":" + record.getId().getValue())
+                    .sequence(sequence != null ? Long.valueOf(sequence) : null)
+                    .timestamp(Instant.ofEpochMilli(record.getId().getTimestamp()))
+                    .event(AuditEventType.valueOf(text(fields.get(EVENT))))
+                    .paymentUuid(text(fields.get(UUID)))
+                    .status(text(fields.get(STATUS)))
+                    .amount(amount != null ? Long.valueOf(amount) : null)
+                    .currency(text(fields.get(CURRENCY)))
+                    .gatewayReference(text(fields.get(REFERENCE)))
+                    .build());
+        }
+        return changes;
+    }
+
+    static String streamKey(int partition) {
+        return STREAM_PREFIX + partition;
+    }
+
+    private static int partitionOfKey(String streamKey) {
+        return Integer.parseInt(streamKey.substring(STREAM_PREFIX.length()));
+    }
+
+    // Change ids are "<partition>:<stream id>"
+    static int partitionOfId(String changeId) {
+        int separator = changeId.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Malformed change id " + changeId);
+        }
+        return Integer.parseInt(changeId.substring(0, separator));
+    }
+
+    static String streamId(String changeId) {
+        return changeId.substring(changeId.indexOf(':') + 1);
+    }
+
+    private static void putIfPresent(Map<String, String> fields, String field, String value) {
+        if (value != null) {
+            fields.put(field, value);
+        }
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.payment_process.feed;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.PaymentChangeBatch;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Long polling for the change feed without a Redis connection per waiting client. A request that
+ * finds nothing new parks as a {@link DeferredResult}, releasing its servlet thread. One watcher
+ * thread blocks on XREAD over all partitions and, whenever any partition moves (a publish from any
+ * instance), lets each parked request retry its own read. Requests complete on the first
+ * non-empty read or with their timeout result.
+ */
+@Component
+public class PaymentChangeNotifier {
+
+    Logger log = Logger.getInstance();
+
+    private final PaymentChangeFeed feed;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Object idle = new Object();
+
+    private volatile boolean running;
+    private Thread watcher;
+
+    @Value("${app.changes.watch-block-ms:5000}")
+    private long watchBlockMs;
+
+    public PaymentChangeNotifier(PaymentChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Completes with {@code read}'s result as soon as it is non-empty, or with {@code onTimeout}
+     * after {@code waitMs}. A {@code waitMs} of 0 reads once and returns.
+     */
+    public DeferredResult<PaymentChangeBatch> await(Supplier<PaymentChangeBatch> read,
+                                                    Supplier<PaymentChangeBatch> onTimeout, long waitMs) {
+        DeferredResult<PaymentChangeBatch> result = new DeferredResult<>(Math.max(1, waitMs), onTimeout);
+
+        // 1) Something new already: answer on this thread
+        PaymentChangeBatch batch = read.get();
+        if (!batch.getChanges().isEmpty() || waitMs <= 0) {
+            result.setResult(batch);
+            return result;
+        }
+
+        // 2) Park, then read once more: a change that landed before registering has no later signal
+        Waiter waiter = new Waiter(read, result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        synchronized (idle) {
+            idle.notifyAll();
+        }
+        waiter.poll();
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        watcher = Thread.ofPlatform().daemon().name("change-feed-watcher").start(this::watch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        synchronized (idle) {
+            idle.notifyAll();
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() {
+        ChangeCursor seen = null;
+        while (running) {
+            try {
+                // 1) Nobody waiting: no reason to hold a blocked Redis connection
+                if (waiters.isEmpty()) {
+                    synchronized (idle) {
+                        while (running && waiters.isEmpty()) {
+                            idle.wait();
+                        }
+                    }
+                    seen = null;
+                    continue;
+                }
+
+                // 2) Block until any partition moves past what we have seen, then let waiters re-read
+                if (seen == null) {
+                    seen = feed.latest();
+                }
+                ChangeCursor next = feed.awaitChanges(seen, Duration.ofMillis(watchBlockMs));
+                if (!next.toString().equals(seen.toString())) {
+                    seen = next;
+                    waiters.forEach(Waiter::poll);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.msg("Change feed watcher failed: " + e.getMessage());
+                seen = null;
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Waiter(Supplier<PaymentChangeBatch> read, DeferredResult<PaymentChangeBatch> result) {
+
+        // Serialized per waiter: a consumer-group read must not run twice at once
+        synchronized void poll() {
+            if (result.isSetOrExpired()) return;
+            try {
+                PaymentChangeBatch batch = read.get();
+                if (!batch.getChanges().isEmpty()) {
+                    result.setResult(batch);
+                }
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.payment_process.feed;
+
+import com.example.payment_process.component.RedisLease;
+import com.example.payment_process.datasource.ShardContext;
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.AuditRecord;
+import com.example.payment_process.model.PaymentChangeOutbox;
+import com.example.payment_process.repository.PaymentChangeOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves committed changes from the payment_change_outbox table into the change feed.
+ * <p>
+ * The outbox row is written in the same transaction as the payment change (see {@link #stage}), so a
+ * committed change is never lost to a Redis outage or a crash after commit. After the commit the
+ * writer wakes the relay, which appends pending rows in id order and then deletes them; a sweep
+ * every relay-interval-ms picks up whatever an earlier drain could not publish. One instance
+ * drains a shard at a time (Redis lease), so a payment's changes reach its stream in order.
+ * Delivery is at least once: a crash between XADD and the delete publishes the row again, with
+ * the same sequence.
+ */
+@Component
+public class PaymentChangeRelay {
+
+    Logger log = Logger.getInstance();
+
+    private static final String LEASE_PREFIX = "changes:relay:shard:";
+
+    private final PaymentChangeOutboxRepository outboxRepository;
+    private final PaymentChangeFeed feed;
+    private final ShardRouter shardRouter;
+    private final RedisLease lease;
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final ExecutorService relay = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "change-feed-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.changes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.changes.relay-batch:200}")
+    private int batchSize;
+
+    @Value("${app.changes.relay-lease-ms:10000}")
+    private long leaseMs;
+
+    public PaymentChangeRelay(PaymentChangeOutboxRepository outboxRepository, PaymentChangeFeed feed,
+                              ShardRouter shardRouter, RedisLease lease) {
+        this.outboxRepository = outboxRepository;
+        this.feed = feed;
+        this.shardRouter = shardRouter;
+        this.lease = lease;
+    }
+
+    // Must run inside the transaction that makes the change, on the payment's shard
+    public void stage(AuditRecord record) {
+        if (!enabled) return;
+        outboxRepository.save(PaymentChangeOutbox.builder()
+                .event(record.getEvent())
+                .paymentUuid(record.getPaymentUuid())
+                .status(record.getStatus())
+                .amount(record.getAmount())
+                .currency(record.getCurrency())
+                .gatewayReference(record.getGatewayReference())
+                .createdAt(record.getTimestamp())
+                .build());
+    }
+
+    // After commit: drain on the relay thread; wakes while a drain is already queued collapse into it
+    public void wake() {
+        if (enabled && queued.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                queued.set(false);
+                drain();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.changes.relay-interval-ms:1000}")
+    public void sweep() {
+        wake();
+    }
+
+    private void drain() {
+        for (int shard : shardRouter.shards()) {
+            try {
+                drainShard(shard);
+            } catch (RuntimeException e) {
+                log.msg("Change feed relay failed on shard " + shard + ", retrying on next sweep: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drainShard(int shard) {
+        String leaseName = LEASE_PREFIX + shard;
+        Duration leaseTtl = Duration.ofMillis(leaseMs);
+        Optional<String> token = lease.tryAcquire(leaseName, leaseTtl);
+        if (token.isEmpty()) {
+            return; // another instance is draining this shard
+        }
+        try {
+            while (true) {
+                List<PaymentChangeOutbox> pending = ShardContext.onShard(shard,
+                        () -> outboxRepository.findAllByOrderByIdAsc(Limit.of(batchSize)));
+                if (pending.isEmpty()) return;
+
+                // Stop at the first failure so later changes never overtake it; delete what made it
+                List<Long> appended = new ArrayList<>(pending.size());
+                try {
+                    for (PaymentChangeOutbox change : pending) {
+                        feed.append(change);
+                        appended.add(change.getId());
+                    }
+                } finally {
+                    if (!appended.isEmpty()) {
+                        ShardContext.onShard(shard, () -> outboxRepository.deleteAllByIdInBatch(appended));
+                    }
+                }
+
+                if (pending.size() < batchSize || !lease.renew(leaseName, token.get(), leaseTtl)) return;
+            }
+        } finally {
+            lease.release(leaseName, token.get());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        relay.shutdown();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.payment_process.gateway;
+
+/**
+ * Gateway call failure. Retryable failures (timeouts, connection errors, 5xx, rate limits)
+ * count against the gateway's health and trigger failover; the others (card declines,
+ * invalid requests) are returned to the caller as-is.
+ */
+public class GatewayException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public GatewayException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public GatewayException(String message, boolean retryable) {
+        this(message, retryable, null);
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
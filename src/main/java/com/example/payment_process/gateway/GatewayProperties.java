@@ -0,0 +1,36 @@
+package com.example.payment_process.gateway;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * app.gateway.* settings. The default Stripe account (stripe.api-key) is always registered as "STRIPE";
+ * extra accounts under app.gateway.accounts.&lt;name&gt; become "STRIPE_&lt;NAME&gt;".
+ */
+@Data
+@ConfigurationProperties("app.gateway")
+public class GatewayProperties {
+
+    // Per-attempt budget before failing over to the next gateway
+    private int timeoutMs = 4000;
+
+    // Weight of the newest sample in the latency / error-rate EWMAs
+    private double ewmaAlpha = 0.2;
+
+    // Score = latencyEwma * (1 + errorPenalty * errorRateEwma)
+    private double errorPenalty = 10.0;
+
+    // Share of requests sent to a random non-best gateway so a recovered one gets noticed
+    private double probeRatio = 0.02;
+
+    private Map<String, Account> accounts = new LinkedHashMap<>();
+
+    @Data
+    public static class Account {
+        private String apiKey;
+        private String webhookSecret;
+    }
+}
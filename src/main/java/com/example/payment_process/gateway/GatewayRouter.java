@@ -0,0 +1,148 @@
+package com.example.payment_process.gateway;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.GatewayIntent;
+import com.example.payment_process.dto.OrderRequest;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Routes each payment intent to the healthiest gateway.
+ * <ul>
+ *   <li>Each gateway keeps an EWMA of call latency and of its error rate (timeouts count as errors).</li>
+ *   <li>Gateways are tried in ascending score order; a timeout or retryable error fails over to the next one.</li>
+ *   <li>A small share of requests probes a non-best gateway so a recovered provider is picked up again.</li>
+ * </ul>
+ * Failing over a PaymentIntent creation is safe: an intent left behind on the slow gateway is never
+ * confirmed, because the client only receives the clientSecret of the intent we return.
+ */
+public class GatewayRouter {
+
+    public static final String DEFAULT_GATEWAY = "STRIPE";
+
+    Logger log = Logger.getInstance();
+
+    private final Map<String, PaymentGateway> gateways = new LinkedHashMap<>();
+    private final Map<String, GatewayStats> stats = new ConcurrentHashMap<>();
+    private final GatewayProperties properties;
+    // Calls run with the caller's observation (trace) restored
+    private final ExecutorService executor = ContextExecutorService.wrap(
+            Executors.newVirtualThreadPerTaskExecutor(), ContextSnapshotFactory.builder().build()::captureAll);
+
+    public GatewayRouter(List<PaymentGateway> gateways, GatewayProperties properties) {
+        this.properties = properties;
+        for (PaymentGateway gateway : gateways) {
+            this.gateways.put(gateway.name(), gateway);
+            this.stats.put(gateway.name(), new GatewayStats(properties.getEwmaAlpha()));
+        }
+    }
+
+    public PaymentGateway gateway(String name) {
+        return find(name).orElseThrow(() -> new IllegalArgumentException("Unknown payment gateway " + name));
+    }
+
+    // Empty for names that come from outside (webhook paths) and match no configured gateway
+    public Optional<PaymentGateway> find(String name) {
+        return Optional.ofNullable(gateways.get(name));
+    }
+
+    public GatewayIntent createPaymentIntent(OrderRequest request, String idempotencyKey) {
+        GatewayException lastError = null;
+
+        for (PaymentGateway gateway : rank()) {
+            GatewayStats gatewayStats = stats.get(gateway.name());
+            long started = System.nanoTime();
+            Future<GatewayIntent> call = executor.submit(() -> gateway.createPaymentIntent(request, idempotencyKey));
+
+            try {
+                GatewayIntent intent = call.get(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+                gatewayStats.recordSuccess(elapsedMs(started));
+                return intent;
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                gatewayStats.recordFailure(properties.getTimeoutMs());
+                lastError = new GatewayException(gateway.name() + " timed out after "
+                        + properties.getTimeoutMs() + " ms", true, e);
+            } catch (ExecutionException e) {
+                GatewayException failure = e.getCause() instanceof GatewayException ge
+                        ? ge : new GatewayException(String.valueOf(e.getCause().getMessage()), true, e.getCause());
+                if (!failure.isRetryable()) {
+                    // The request itself was rejected; another gateway would reject it too
+                    gatewayStats.recordSuccess(elapsedMs(started));
+                    throw failure;
+                }
+                gatewayStats.recordFailure(elapsedMs(started));
+                lastError = failure;
+            } catch (InterruptedException e) {
+                call.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new GatewayException("Interrupted while calling " + gateway.name(), false, e);
+            }
+
+            log.msg("Gateway " + gateway.name() + " failed (" + lastError.getMessage() + "), failing over");
+        }
+
+        throw lastError != null ? lastError : new GatewayException("No payment gateways configured", false);
+    }
+
+    // Gateways by ascending score, occasionally promoting another one as a health probe
+    List<PaymentGateway> rank() {
+        List<PaymentGateway> ranked = new ArrayList<>(gateways.values());
+        ranked.sort(Comparator.comparingDouble(g -> stats.get(g.name()).score(properties.getErrorPenalty())));
+
+        if (ranked.size() > 1 && ThreadLocalRandom.current().nextDouble() < properties.getProbeRatio()) {
+            int probe = 1 + ThreadLocalRandom.current().nextInt(ranked.size() - 1);
+            ranked.add(0, ranked.remove(probe));
+        }
+        return ranked;
+    }
+
+    public Map<String, Double> scores() {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        gateways.keySet().forEach(name -> scores.put(name, stats.get(name).score(properties.getErrorPenalty())));
+        return scores;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static double elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000.0;
+    }
+
+    static final class GatewayStats {
+
+        private final double alpha;
+        private double latencyMs = -1;
+        private double errorRate = 0;
+
+        GatewayStats(double alpha) {
+            this.alpha = alpha;
+        }
+
+        synchronized void recordSuccess(double latency) {
+            record(latency, 0);
+        }
+
+        synchronized void recordFailure(double latency) {
+            record(latency, 1);
+        }
+
+        synchronized double score(double errorPenalty) {
+            // Unmeasured gateways score 0 so they get tried
+            double latency = latencyMs < 0 ? 0 : latencyMs;
+            return latency * (1 + errorPenalty * errorRate);
+        }
+
+        private void record(double latency, double error) {
+            latencyMs = latencyMs < 0 ? latency : alpha * latency + (1 - alpha) * latencyMs;
+            errorRate = alpha * error + (1 - alpha) * errorRate;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.payment_process.gateway;
+
+import com.example.payment_process.dto.GatewayIntent;
+import com.example.payment_process.dto.OrderRequest;
+
+/**
+ * One payment provider or provider account that can create payment intents.
+ * Implementations throw {@link GatewayException} on failure.
+ */
+public interface PaymentGateway {
+
+    // Stored in Transaction.gateway and used to dispatch webhooks
+    String name();
+
+    String webhookSecret();
+
+    GatewayIntent createPaymentIntent(OrderRequest request, String idempotencyKey);
+}
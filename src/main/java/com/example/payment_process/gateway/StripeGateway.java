@@ -0,0 +1,80 @@
+package com.example.payment_process.gateway;
+
+import com.example.payment_process.dto.GatewayIntent;
+import com.example.payment_process.dto.OrderRequest;
+import com.example.payment_process.tracing.PaymentTracing;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * A Stripe account. The API key is passed per request, so several accounts can be used side by side.
+ */
+public class StripeGateway implements PaymentGateway {
+
+    private final String name;
+    private final String apiKey;
+    private final String webhookSecret;
+    private final int timeoutMs;
+    private final PaymentTracing tracing;
+
+    public StripeGateway(String name, String apiKey, String webhookSecret, int timeoutMs, PaymentTracing tracing) {
+        this.name = name;
+        this.apiKey = apiKey;
+        this.webhookSecret = webhookSecret;
+        this.timeoutMs = timeoutMs;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String webhookSecret() {
+        return webhookSecret;
+    }
+
+    @Override
+    public GatewayIntent createPaymentIntent(OrderRequest orderRequest, String idempotencyKey) {
+        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
+                .setAmount(orderRequest.getAmount())
+                .setCurrency(orderRequest.getCurrency())
+                .addPaymentMethodType("card")
+                .setDescription(orderRequest.getDescription());
+        // The payment_intent.* webhooks carry the metadata back, so their processing joins this trace
+        tracing.currentTraceparent().ifPresent(tp -> builder.putMetadata(PaymentTracing.TRACEPARENT, tp));
+        PaymentIntentCreateParams params = builder.build();
+
+        RequestOptions requestOptions = RequestOptions.builder()
+                .setApiKey(apiKey)
+                .setIdempotencyKey(idempotencyKey)
+                .setConnectTimeout(timeoutMs)
+                .setReadTimeout(timeoutMs)
+                .build();
+
+        try {
+            PaymentIntent intent = PaymentIntent.create(params, requestOptions);
+            return GatewayIntent.builder()
+                    .gateway(name)
+                    .id(intent.getId())
+                    .clientSecret(intent.getClientSecret())
+                    .status(intent.getStatus())
+                    .build();
+        } catch (StripeException e) {
+            throw new GatewayException(e.getMessage(), isRetryable(e), e);
+        }
+    }
+
+    private static boolean isRetryable(StripeException e) {
+        return e instanceof ApiConnectionException
+                || e instanceof RateLimitException
+                || e instanceof ApiException
+                || (e.getStatusCode() != null && e.getStatusCode() >= 500);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.payment_process.journal;
+
+import com.example.payment_process.dto.AuditEventType;
+import com.example.payment_process.dto.AuditRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed 256-byte record layout (big endian):
+ * <pre>
+ *   0  int   magic
+ *   4  int   CRC32C of bytes 8..255
+ *   8  long  sequence
+ *  16  long  timestamp (epoch millis)
+ *  24  long  FNV-1a hash of the full payment uuid
+ *  32  long  amount (Long.MIN_VALUE = null)
+ *  40  byte  event ordinal
+ *  41  byte  uuid / status / currency / gateway reference lengths (4 bytes)
+ *  48  96 B  payment uuid (UTF-8, truncated)
+ * 144  32 B  status
+ * 176   8 B  currency
+ * 184  72 B  gateway reference
+ * </pre>
+ * Unwritten slots are all zeros, so magic == 0 marks the end of a segment.
+ */
+final class AuditRecordCodec {
+
+    static final int RECORD_SIZE = 256;
+    static final int MAGIC = 0x50415931; // "PAY1"
+
+    private static final int CRC = 4;
+    private static final int BODY = 8;
+    private static final int SEQUENCE = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int UUID_HASH = 24;
+    private static final int AMOUNT = 32;
+    private static final int EVENT = 40;
+    private static final int LENGTHS = 41;
+
+    private static final int[] FIELD_OFFSETS = {48, 144, 176, 184};
+    private static final int[] FIELD_SIZES = {96, 32, 8, 72};
+
+    private AuditRecordCodec() {
+    }
+
+    /**
+     * Encodes into a heap buffer of RECORD_SIZE bytes, overwriting every byte.
+     */
+    static void encode(ByteBuffer target, long sequence, AuditRecord record) {
+        Arrays.fill(target.array(), (byte) 0);
+
+        target.putLong(SEQUENCE, sequence);
+        target.putLong(TIMESTAMP, record.getTimestamp().toEpochMilli());
+        target.putLong(UUID_HASH, hash(record.getPaymentUuid()));
+        target.putLong(AMOUNT, record.getAmount() != null ? record.getAmount() : Long.MIN_VALUE);
+        target.put(EVENT, (byte) record.getEvent().ordinal());
+
+        String[] fields = {record.getPaymentUuid(), record.getStatus(), record.getCurrency(), record.getGatewayReference()};
+        for (int i = 0; i < fields.length; i++) {
+            byte[] bytes = fields[i] != null ? fields[i].getBytes(StandardCharsets.UTF_8) : new byte[0];
+            int length = Math.min(bytes.length, FIELD_SIZES[i]);
+            target.put(FIELD_OFFSETS[i], bytes, 0, length);
+            target.put(LENGTHS + i, (byte) length);
+        }
+
+        target.putInt(CRC, crc(target, 0));
+        target.putInt(0, MAGIC);
+    }
+
+    /**
+     * Decodes the record at offset, or returns null for an empty slot or a torn / corrupt record.
+     */
+    static AuditRecord decode(ByteBuffer source, int offset) {
+        if (source.getInt(offset) != MAGIC || source.getInt(offset + CRC) != crc(source, offset)) {
+            return null;
+        }
+        String[] fields = new String[FIELD_OFFSETS.length];
+        for (int i = 0; i < fields.length; i++) {
+            int length = Byte.toUnsignedInt(source.get(offset + LENGTHS + i));
+            byte[] bytes = new byte[length];
+            source.get(offset + FIELD_OFFSETS[i], bytes);
+            fields[i] = length > 0 ? new String(bytes, StandardCharsets.UTF_8) : null;
+        }
+        long amount = source.getLong(offset + AMOUNT);
+        return AuditRecord.builder()
+                .sequence(source.getLong(offset + SEQUENCE))
+                .timestamp(Instant.ofEpochMilli(source.getLong(offset + TIMESTAMP)))
+                .event(AuditEventType.values()[source.get(offset + EVENT)])
+                .paymentUuid(fields[0])
+                .status(fields[1])
+                .currency(fields[2])
+                .gatewayReference(fields[3])
+                .amount(amount != Long.MIN_VALUE ? amount : null)
+                .build();
+    }
+
+    static boolean isEmpty(ByteBuffer source, int offset) {
+        return source.getInt(offset) == 0;
+    }
+
+    static long uuidHash(ByteBuffer source, int offset) {
+        return source.getLong(offset + UUID_HASH);
+    }
+
+    // The stored uuid may be truncated; the hash already matched on the full value
+    static boolean matches(AuditRecord record, String paymentUuid) {
+        String stored = record.getPaymentUuid();
+        return stored != null && (stored.equals(paymentUuid)
+                || (stored.getBytes(StandardCharsets.UTF_8).length == FIELD_SIZES[0] && paymentUuid.startsWith(stored)));
+    }
+
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + BODY, RECORD_SIZE - BODY));
+        return (int) crc.getValue();
+    }
+}
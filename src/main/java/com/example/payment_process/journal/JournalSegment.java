@@ -0,0 +1,146 @@
+package com.example.payment_process.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.payment_process.journal.AuditRecordCodec.RECORD_SIZE;
+
+/**
+ * One memory-mapped segment file of fixed-size slots. Sequence of slot n = firstSequence + n.
+ * A sealed segment has a sidecar .idx file: (uuid hash, slot) pairs sorted by hash, 12 bytes each,
+ * mapped once when the segment is sealed or opened. Reads use absolute gets only, so one mapping
+ * serves concurrent lookups.
+ */
+final class JournalSegment {
+
+    private static final int INDEX_ENTRY = Long.BYTES + Integer.BYTES;
+
+    final Path path;
+    final long firstSequence;
+    final int capacity;
+    final MappedByteBuffer buffer;
+
+    // Sealed segments only
+    private volatile ByteBuffer index;
+
+    private JournalSegment(Path path, long firstSequence, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("journal-%020d.seg", firstSequence);
+    }
+
+    static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".seg".length()));
+    }
+
+    static Path indexPath(Path segmentPath) {
+        return segmentPath.resolveSibling(segmentPath.getFileName().toString().replace(".seg", ".idx"));
+    }
+
+    static JournalSegment openWritable(Path path, int capacity) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; new pages read as zeros (= empty slots)
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new JournalSegment(path, firstSequence(path), capacity, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static JournalSegment openReadOnly(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new JournalSegment(path, firstSequence(path), (int) (channel.size() / RECORD_SIZE), buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static int offset(int slot) {
+        return slot * RECORD_SIZE;
+    }
+
+    // First empty or torn slot: everything before it is a valid record
+    int recover(Map<Long, List<Integer>> index) {
+        int slot = 0;
+        while (slot < capacity && AuditRecordCodec.decode(buffer, offset(slot)) != null) {
+            index.computeIfAbsent(AuditRecordCodec.uuidHash(buffer, offset(slot)), h -> new ArrayList<>()).add(slot);
+            slot++;
+        }
+        return slot;
+    }
+
+    void force(int fromSlot, int toSlot) {
+        buffer.force(offset(fromSlot), offset(toSlot) - offset(fromSlot));
+    }
+
+    void writeIndex(Map<Long, List<Integer>> index) {
+        List<long[]> entries = new ArrayList<>();
+        index.forEach((hash, slots) -> slots.forEach(slot -> entries.add(new long[]{hash, slot})));
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        ByteBuffer out = ByteBuffer.allocate(entries.size() * INDEX_ENTRY);
+        entries.forEach(e -> out.putLong(e[0]).putInt((int) e[1]));
+        try {
+            Path tmp = indexPath(path).resolveSibling(indexPath(path).getFileName() + ".tmp");
+            Files.write(tmp, out.array());
+            Files.move(tmp, indexPath(path), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        loadIndex();
+    }
+
+    void loadIndex() {
+        try (FileChannel channel = FileChannel.open(indexPath(path), StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Existing mappings stay readable until they are garbage collected
+    void delete() {
+        try {
+            Files.deleteIfExists(indexPath(path));
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Slots holding records for this uuid hash, via binary search in the sidecar index
+    List<Integer> lookup(long hash) {
+        List<Integer> slots = new ArrayList<>();
+        ByteBuffer index = this.index;
+        int entries = index.capacity() / INDEX_ENTRY;
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * INDEX_ENTRY) < hash) low = mid + 1;
+            else high = mid;
+        }
+        for (int i = low; i < entries && index.getLong(i * INDEX_ENTRY) == hash; i++) {
+            slots.add(index.getInt(i * INDEX_ENTRY + Long.BYTES));
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.payment_process.journal;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.AuditRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static com.example.payment_process.journal.AuditRecordCodec.RECORD_SIZE;
+
+/**
+ * Append-only audit journal of payment state transitions, kept outside MySQL. Each instance has its
+ * own journal directory with a single writer; history() covers only what this instance recorded.
+ * <ul>
+ *   <li>Fixed 256-byte records with a CRC (see AuditRecordCodec) in memory-mapped segment files.</li>
+ *   <li>Group commit: a flusher forces the dirty range every flush-interval-ms; with durable-append each
+ *       caller waits for the flush covering its record, so concurrent appends share one fsync.</li>
+ *   <li>Segments roll at segment-bytes; a sealed segment gets a sorted uuid-hash index for history().
+ *       Sealed segments and their indexes stay mapped, so history() maps nothing per call.</li>
+ *   <li>Only the newest retained-segments sealed segments are kept; older ones are deleted on roll,
+ *       which bounds the journal at (retained-segments + 1) x segment-bytes plus indexes.</li>
+ *   <li>On startup the open segment is scanned up to the first empty or torn record.</li>
+ * </ul>
+ * Journaling is best effort next to MySQL and the change outbox: callers log a failed append
+ * rather than failing a transition that has already committed.
+ */
+@Component
+public class PaymentJournal {
+
+    Logger log = Logger.getInstance();
+
+    @Value("${app.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.journal.dir:journal}")
+    private Path dir;
+
+    @Value("${app.journal.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${app.journal.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${app.journal.durable-append:true}")
+    private boolean durableAppend;
+
+    @Value("${app.journal.durable-timeout-ms:5000}")
+    private long durableTimeoutMs;
+
+    @Value("${app.journal.retained-segments:24}")
+    private int retainedSegments;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+
+    // Oldest first; guarded by appendLock
+    private final Deque<JournalSegment> sealedSegments = new ArrayDeque<>();
+
+    // Guarded by appendLock
+    private JournalSegment active;
+    private Map<Long, List<Integer>> activeIndex = new HashMap<>();
+    private int nextSlot;
+    private int flushedSlot;
+    private long writtenSequence = -1;
+
+    // Guarded by durableMonitor
+    private final Object durableMonitor = new Object();
+    private long durableSequence = -1;
+
+    private ScheduledExecutorService flusher;
+
+    public PaymentJournal() {
+    }
+
+    // For benchmarks and tools outside Spring
+    public PaymentJournal(Path dir, long segmentBytes, long flushIntervalMs, boolean durableAppend) {
+        this(dir, segmentBytes, flushIntervalMs, durableAppend, 5000);
+    }
+
+    public PaymentJournal(Path dir, long segmentBytes, long flushIntervalMs, boolean durableAppend,
+                          long durableTimeoutMs) {
+        this(dir, segmentBytes, flushIntervalMs, durableAppend, durableTimeoutMs, Integer.MAX_VALUE);
+    }
+
+    public PaymentJournal(Path dir, long segmentBytes, long flushIntervalMs, boolean durableAppend,
+                          long durableTimeoutMs, int retainedSegments) {
+        this.enabled = true;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalMs = flushIntervalMs;
+        this.durableAppend = durableAppend;
+        this.durableTimeoutMs = durableTimeoutMs;
+        this.retainedSegments = retainedSegments;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(dir);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(dir)) {
+                segments = files.filter(p -> p.getFileName().toString().matches("journal-\\d{20}\\.seg"))
+                        .sorted()
+                        .toList();
+            }
+
+            // 1) Sealed segments: rebuild a missing index (crash while rolling)
+            for (Path segment : segments.subList(0, Math.max(0, segments.size() - 1))) {
+                JournalSegment sealed = JournalSegment.openReadOnly(segment);
+                if (Files.exists(JournalSegment.indexPath(segment))) {
+                    sealed.loadIndex();
+                } else {
+                    Map<Long, List<Integer>> index = new HashMap<>();
+                    sealed.recover(index);
+                    sealed.writeIndex(index);
+                }
+                sealedSegments.add(sealed);
+            }
+            dropExpiredSegments();
+
+            // 2) Open segment: continue after the last valid record
+            Path last = segments.isEmpty() ? dir.resolve(JournalSegment.fileName(0)) : segments.get(segments.size() - 1);
+            active = JournalSegment.openWritable(last, capacity());
+            nextSlot = active.recover(activeIndex);
+            flushedSlot = nextSlot;
+            writtenSequence = active.firstSequence + nextSlot - 1;
+            durableSequence = writtenSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payment-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.msg("Payment journal open at " + dir.toAbsolutePath() + ", next sequence " + (writtenSequence + 1));
+    }
+
+    /**
+     * Appends one record and returns its sequence, or -1 when the journal is disabled.
+     * With durable-append the call returns once the record has been forced to disk, and throws
+     * IllegalStateException if that has not happened within durable-timeout-ms (the record stays
+     * written and is forced by a later flush).
+     */
+    public long append(AuditRecord record) {
+        if (!enabled) return -1;
+
+        long sequence;
+        appendLock.lock();
+        try {
+            if (nextSlot == active.capacity) {
+                roll();
+            }
+            sequence = active.firstSequence + nextSlot;
+            AuditRecordCodec.encode(scratch, sequence, record);
+            active.buffer.put(JournalSegment.offset(nextSlot), scratch, 0, RECORD_SIZE);
+            activeIndex.computeIfAbsent(AuditRecordCodec.hash(record.getPaymentUuid()), h -> new ArrayList<>()).add(nextSlot);
+            nextSlot++;
+            writtenSequence = sequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (durableAppend) {
+            awaitDurable(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Every record for this payment uuid, oldest first.
+     */
+    public List<AuditRecord> history(String paymentUuid) {
+        if (!enabled) return List.of();
+        long hash = AuditRecordCodec.hash(paymentUuid);
+        List<AuditRecord> records = new ArrayList<>();
+
+        List<JournalSegment> sealed;
+        appendLock.lock();
+        try {
+            sealed = new ArrayList<>(sealedSegments);
+            for (int slot : activeIndex.getOrDefault(hash, List.of())) {
+                addIfMatches(records, active.buffer, slot, paymentUuid);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        for (JournalSegment segment : sealed) {
+            for (int slot : segment.lookup(hash)) {
+                addIfMatches(records, segment.buffer, slot, paymentUuid);
+            }
+        }
+
+        records.sort(Comparator.comparingLong(AuditRecord::getSequence));
+        return records;
+    }
+
+    private void addIfMatches(List<AuditRecord> records, ByteBuffer buffer, int slot, String paymentUuid) {
+        AuditRecord record = AuditRecordCodec.decode(buffer, JournalSegment.offset(slot));
+        if (record == null) {
+            log.msg("Skipping corrupt journal record at slot " + slot);
+        } else if (AuditRecordCodec.matches(record, paymentUuid)) {
+            records.add(record);
+        }
+    }
+
+    // Group commit: one force for everything appended since the last flush.
+    // Never throws: an exception would cancel the scheduled flusher for good
+    void flush() {
+        JournalSegment segment;
+        int from;
+        int to;
+        long target;
+        appendLock.lock();
+        try {
+            segment = active;
+            from = flushedSlot;
+            to = nextSlot;
+            target = writtenSequence;
+            flushedSlot = to;
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            if (to > from) {
+                segment.force(from, to);
+            }
+        } catch (RuntimeException e) {
+            // Retry the range next time; a rolled segment was already forced whole by roll()
+            appendLock.lock();
+            try {
+                if (active == segment) {
+                    flushedSlot = Math.min(flushedSlot, from);
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            log.msg("Payment journal flush failed, retrying: " + e.getMessage());
+            return;
+        }
+        markDurable(target);
+    }
+
+    // Called with appendLock held. Forces the whole segment: a concurrent flush() may still be forcing its range
+    private void roll() {
+        active.force(0, nextSlot);
+        active.writeIndex(activeIndex);
+        sealedSegments.add(active);
+        markDurable(writtenSequence);
+        dropExpiredSegments();
+
+        long firstSequence = active.firstSequence + nextSlot;
+        active = JournalSegment.openWritable(dir.resolve(JournalSegment.fileName(firstSequence)), capacity());
+        activeIndex = new HashMap<>();
+        nextSlot = 0;
+        flushedSlot = 0;
+        log.msg("Payment journal rolled to " + active.path.getFileName());
+    }
+
+    // Called with appendLock held (or before the flusher starts). A failed delete is retried on the next roll
+    private void dropExpiredSegments() {
+        while (sealedSegments.size() > retainedSegments) {
+            JournalSegment oldest = sealedSegments.peekFirst();
+            try {
+                oldest.delete();
+            } catch (UncheckedIOException e) {
+                log.msg("Could not delete journal segment " + oldest.path.getFileName() + ": " + e.getMessage());
+                return;
+            }
+            sealedSegments.removeFirst();
+            log.msg("Payment journal dropped " + oldest.path.getFileName());
+        }
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (durableMonitor) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durableTimeoutMs);
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Journal record " + sequence + " not forced to disk within "
+                            + durableTimeoutMs + " ms");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(durableMonitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int capacity() {
+        return (int) Math.max(1, segmentBytes / RECORD_SIZE);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        flush();
+    }
+}
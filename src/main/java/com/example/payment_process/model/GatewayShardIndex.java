@@ -0,0 +1,27 @@
+package com.example.payment_process.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Directory entry (on shard 0) from a gateway transaction id to the shard holding its Transaction,
+ * so webhooks, which only carry the gateway id, route without a scatter query.
+ */
+@Entity
+@Table(name = "gateway_shard_index")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GatewayShardIndex {
+
+    @Id
+    @Column(name = "gateway_transaction_id")
+    private String gatewayTransactionId;
+
+    @Column(nullable = false)
+    private Integer shard;
+}
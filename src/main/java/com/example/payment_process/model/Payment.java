@@ -10,6 +10,10 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_payment_created_at", columnList = "created_at"),
+        @Index(name = "idx_payment_updated_at", columnList = "updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,10 +33,19 @@ public class Payment {
     private String status;
     private Instant createdAt;
 
+    // Bumped on every state change; source of the status ETag
+    private Instant updatedAt;
+
     @PrePersist
     protected void onCreate() {
         if(this.uuid==null)this.uuid= UUID.randomUUID().toString();
         if(this.createdAt==null)this.createdAt=Instant.now();
+        if(this.updatedAt==null)this.updatedAt=this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt=Instant.now();
     }
 
     @Column(name="checkout_url",length = 2000)
@@ -0,0 +1,43 @@
+package com.example.payment_process.model;
+
+import com.example.payment_process.dto.AuditEventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox for the payment change feed: written in the same transaction as the state
+ * change it describes, on the payment's shard, and deleted once PaymentChangeRelay has appended it
+ * to the Redis stream. The id is the change's sequence, so consumers can drop redeliveries.
+ */
+@Entity
+@Table(name = "payment_change_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentChangeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private AuditEventType event;
+
+    @Column(name = "payment_uuid", nullable = false)
+    private String paymentUuid;
+
+    private String status;
+    private Long amount;
+    private String currency;
+    private String gatewayReference;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,27 @@
+package com.example.payment_process.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of the payment list on this shard, bumped in every transaction that adds, changes or
+ * archives a payment. Spread over a few slot rows so concurrent writers rarely wait on the same
+ * row lock; the list version is the sum of the slots, which grows with every bump.
+ */
+@Entity
+@Table(name = "payment_list_version")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentListVersion {
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,41 @@
+package com.example.payment_process.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated payment counters per hour bucket, currency and status.
+ * bucketHour is epoch hours (UTC), so no timezone handling is needed on the column.
+ */
+@Entity
+@Table(name = "payment_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_bucket",
+                columnNames = {"bucket_hour", "currency", "status"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private Long bucketHour;
+
+    @Column(nullable = false)
+    private String currency;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name = "amount_total", nullable = false)
+    private Long amountTotal;
+}
@@ -0,0 +1,43 @@
+package com.example.payment_process.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Denormalized read model for status lookups: Payment plus its latest Transaction.
+ * Written in the same transaction as every Payment/Transaction state change.
+ */
+@Entity
+@Table(name = "payment_status_view")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStatusView {
+
+    @Id
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(unique = true, nullable = false)
+    private String uuid;
+
+    private Long amount;
+    private String currency;
+    private String description;
+    private String status;
+
+    // latest transaction info
+    private String lastTransactionUuid;
+    private String lastTransactionStatus;
+    private String lastGateway;
+    private String lastGatewayTransactionId;
+    private Instant lastTransactionCreatedAt;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,52 @@
+package com.example.payment_process.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Stripe Price created for a (description, amount, currency) catalog item, reused by checkout sessions.
+ * catalogKey is the SHA-256 of the normalized triple so long descriptions still fit a unique index.
+ */
+@Entity
+@Table(name = "stripe_price",
+        indexes = @Index(name = "idx_stripe_price_last_used", columnList = "last_used_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripePrice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "catalog_key", unique = true, nullable = false, length = 64)
+    private String catalogKey;
+
+    @Column(length = 500)
+    private String description;
+
+    private Long amount;
+    private String currency;
+
+    @Column(name = "price_id", nullable = false)
+    private String priceId;
+
+    private String productId;
+
+    private Instant createdAt;
+
+    @Column(name = "last_used_at")
+    private Instant lastUsedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if(this.createdAt==null)this.createdAt=Instant.now();
+        if(this.lastUsedAt==null)this.lastUsedAt=this.createdAt;
+    }
+}
@@ -11,6 +11,8 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+// Not unique: ddl-auto adds it to existing tables, where legacy duplicate gateway ids would make a unique index fail
+@Table(indexes = @Index(name = "idx_transaction_gateway_tx_id", columnList = "gateway_transaction_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
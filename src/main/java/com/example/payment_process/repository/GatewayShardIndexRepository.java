@@ -0,0 +1,9 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.GatewayShardIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GatewayShardIndexRepository extends JpaRepository<GatewayShardIndex,String> {
+}
@@ -0,0 +1,54 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.dto.IdempotencySnapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable idempotency tier: idempotency_record, keyed by the SHA-256 of the idempotency key.
+ * The table is compressed and range-partitioned by expiry bucket (see IdempotencyRetentionService),
+ * so expired results are removed a whole partition at a time instead of row by row.
+ */
+@Repository
+public class IdempotencyRecordRepository {
+
+    public static final String TABLE = "idempotency_record";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyRecordRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Same key and bucket: the latest result replaces the earlier one
+    public void upsert(byte[] keyHash, long expiryBucket, String snapshot, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (key_hash, expiry_bucket, expires_at, snapshot) "
+                        + "VALUES (?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE expires_at = VALUES(expires_at), snapshot = VALUES(snapshot)",
+                keyHash, expiryBucket, Timestamp.from(expiresAt), snapshot);
+    }
+
+    // Buckets before fromBucket are expired (and about to be dropped), so they are pruned from the lookup
+    public Optional<IdempotencySnapshot> findLive(byte[] keyHash, long fromBucket, Instant now) {
+        return jdbcTemplate.query("SELECT snapshot, expires_at FROM " + TABLE + " "
+                                + "WHERE key_hash = ? AND expiry_bucket >= ? AND expires_at > ? "
+                                + "ORDER BY expires_at DESC LIMIT 1",
+                (rs, rowNum) -> IdempotencySnapshot.builder()
+                        .value(rs.getString("snapshot"))
+                        .expiresAt(rs.getTimestamp("expires_at").toInstant())
+                        .build(),
+                keyHash, fromBucket, Timestamp.from(now)).stream().findFirst();
+    }
+
+    public List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                String.class, TABLE);
+    }
+}
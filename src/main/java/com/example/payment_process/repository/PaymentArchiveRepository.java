@@ -0,0 +1,116 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.Payment;
+import com.example.payment_process.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold storage for settled payments: payment_archive / transaction_archive.
+ * Both tables are compressed and range-partitioned by month on created_at (see PaymentArchiveService).
+ * Rows are returned as detached Payment / Transaction instances.
+ */
+@Repository
+public class PaymentArchiveRepository {
+
+    private static final String PAYMENT_COLUMNS =
+            "id, uuid, amount, currency, description, status, created_at, checkout_url";
+    private static final String TRANSACTION_COLUMNS =
+            "id, payment_id, uuid, gateway_transaction_id, gateway, status, created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    public PaymentArchiveRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public Optional<Payment> findByUuid(String uuid) {
+        if (!enabled) return Optional.empty();
+        return jdbcTemplate.query("SELECT " + PAYMENT_COLUMNS + " FROM payment_archive WHERE uuid = ? LIMIT 1",
+                PAYMENT_ROW_MAPPER, uuid).stream().findFirst();
+    }
+
+    // Archived payments are settled and never change, so created_at is their version
+    public Optional<Instant> findVersionByUuid(String uuid) {
+        if (!enabled) return Optional.empty();
+        return jdbcTemplate.query("SELECT created_at FROM payment_archive WHERE uuid = ? LIMIT 1",
+                (rs, rowNum) -> toInstant(rs.getTimestamp("created_at")), uuid).stream().findFirst();
+    }
+
+    public Optional<Payment> findById(Long id) {
+        if (!enabled) return Optional.empty();
+        return jdbcTemplate.query("SELECT " + PAYMENT_COLUMNS + " FROM payment_archive WHERE id = ? LIMIT 1",
+                PAYMENT_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public Optional<Transaction> findLatestTransaction(Payment payment) {
+        if (!enabled) return Optional.empty();
+        return jdbcTemplate.query("SELECT " + TRANSACTION_COLUMNS + " FROM transaction_archive "
+                                + "WHERE payment_id = ? ORDER BY created_at DESC LIMIT 1",
+                (rs, rowNum) -> Transaction.builder()
+                        .id(rs.getLong("id"))
+                        .payment(payment)
+                        .uuid(rs.getString("uuid"))
+                        .gatewayTransactionId(rs.getString("gateway_transaction_id"))
+                        .gateway(rs.getString("gateway"))
+                        .status(rs.getString("status"))
+                        .createdAt(toInstant(rs.getTimestamp("created_at")))
+                        .build(),
+                payment.getId()).stream().findFirst();
+    }
+
+    // Ids of settled payments older than the cutoff, oldest first
+    public List<Long> findArchivableIds(Instant createdBefore, List<String> settledStatuses, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.from(createdBefore))
+                .addValue("statuses", settledStatuses)
+                .addValue("limit", limit);
+        return namedJdbcTemplate.queryForList(
+                "SELECT id FROM payment WHERE created_at < :cutoff AND status IN (:statuses) ORDER BY id LIMIT :limit",
+                params, Long.class);
+    }
+
+    // Copy then delete; caller runs this in one transaction
+    public int moveToArchive(List<Long> paymentIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", paymentIds);
+        int moved = namedJdbcTemplate.update(
+                "INSERT INTO payment_archive (" + PAYMENT_COLUMNS + ", archived_at) "
+                        + "SELECT " + PAYMENT_COLUMNS + ", NOW(6) FROM payment WHERE id IN (:ids)", params);
+        namedJdbcTemplate.update(
+                "INSERT INTO transaction_archive (" + TRANSACTION_COLUMNS + ") "
+                        + "SELECT " + TRANSACTION_COLUMNS + " FROM `transaction` WHERE payment_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM payment_status_view WHERE payment_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM `transaction` WHERE payment_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM payment WHERE id IN (:ids)", params);
+        return moved;
+    }
+
+    private static final RowMapper<Payment> PAYMENT_ROW_MAPPER = (rs, rowNum) -> Payment.builder()
+            .id(rs.getLong("id"))
+            .uuid(rs.getString("uuid"))
+            .amount(rs.getObject("amount", Long.class))
+            .currency(rs.getString("currency"))
+            .description(rs.getString("description"))
+            .status(rs.getString("status"))
+            .createdAt(toInstant(rs.getTimestamp("created_at")))
+            .checkoutUrl(rs.getString("checkout_url"))
+            .build();
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.PaymentChangeOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentChangeOutboxRepository extends JpaRepository<PaymentChangeOutbox,Long> {
+
+    // Oldest first; one payment's changes are committed one after another, so id order keeps their order
+    List<PaymentChangeOutbox> findAllByOrderByIdAsc(Limit limit);
+}
@@ -0,0 +1,30 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.PaymentListVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Repository
+public interface PaymentListVersionRepository extends JpaRepository<PaymentListVersion,Integer> {
+
+    int SLOTS = 16;
+
+    // Must run inside the writing transaction, as its last statement: the slot row stays locked until commit
+    default void bump() {
+        bump(ThreadLocalRandom.current().nextInt(SLOTS));
+    }
+
+    @Modifying
+    @Query(value = "INSERT INTO payment_list_version (slot, version) VALUES (:slot, 1) "
+            + "ON DUPLICATE KEY UPDATE version = version + 1", nativeQuery = true)
+    void bump(@Param("slot") int slot);
+
+    // At most SLOTS primary key rows, whatever the size of the payment table
+    @Query("select coalesce(sum(v.version), 0) from PaymentListVersion v")
+    long currentVersion();
+}
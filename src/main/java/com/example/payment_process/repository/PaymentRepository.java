@@ -2,9 +2,13 @@ package com.example.payment_process.repository;
 
 import com.example.payment_process.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +16,16 @@ public interface PaymentRepository extends JpaRepository<Payment,Long> {
 
     Optional<Payment> findByUuid(String uuid);
     Optional<Payment> findById(Long id);
+    List<Payment> findByIdBetween(Long fromId, Long toId);
+
+    @Query("select min(p.id) from Payment p")
+    Long findMinId();
+
+    @Query("select max(p.id) from Payment p")
+    Long findMaxId();
+
+    // Version of a single payment without loading it (rows from before updated_at existed fall back to created_at)
+    @Query("select coalesce(p.updatedAt, p.createdAt) from Payment p where p.uuid = :uuid")
+    Optional<Instant> findVersionByUuid(@Param("uuid") String uuid);
 
 }
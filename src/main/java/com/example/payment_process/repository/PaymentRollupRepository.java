@@ -0,0 +1,13 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.PaymentRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup,Long> {
+
+    List<PaymentRollup> findByBucketHourBetween(Long fromHour, Long toHour);
+}
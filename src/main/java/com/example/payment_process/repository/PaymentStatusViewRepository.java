@@ -0,0 +1,13 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.PaymentStatusView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentStatusViewRepository extends JpaRepository<PaymentStatusView,Long> {
+
+    Optional<PaymentStatusView> findByUuid(String uuid);
+}
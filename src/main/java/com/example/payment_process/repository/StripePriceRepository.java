@@ -0,0 +1,33 @@
+package com.example.payment_process.repository;
+
+import com.example.payment_process.model.StripePrice;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StripePriceRepository extends JpaRepository<StripePrice,Long> {
+
+    Optional<StripePrice> findByCatalogKey(String catalogKey);
+
+    List<StripePrice> findAllByOrderByLastUsedAtDesc(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update StripePrice p set p.lastUsedAt = :lastUsedAt where p.catalogKey in :catalogKeys")
+    int touch(@Param("catalogKeys") Collection<String> catalogKeys, @Param("lastUsedAt") Instant lastUsedAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StripePrice p where p.lastUsedAt < :cutoff")
+    int deleteByLastUsedAtBefore(@Param("cutoff") Instant cutoff);
+}
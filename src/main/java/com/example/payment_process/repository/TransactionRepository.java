@@ -3,8 +3,14 @@ package com.example.payment_process.repository;
 import com.example.payment_process.model.Payment;
 import com.example.payment_process.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +20,47 @@ public interface TransactionRepository extends JpaRepository<Transaction,Long> {
     Optional<Transaction> findByUuid(String uuid);
     Optional<Transaction> findByGatewayTransactionId(String gatewayTransactionId);
     List<Transaction> findByPaymentOrderByCreatedAtDesc(Payment payment);
+    List<Transaction> findByPaymentIn(Collection<Payment> payments);
+
+    @Query("select t.payment from Transaction t where t.gatewayTransactionId = :gatewayTransactionId")
+    Optional<Payment> findPaymentByGatewayTransactionId(@Param("gatewayTransactionId") String gatewayTransactionId);
+
+    // Status of the payment behind a gateway transaction, locked until the surrounding transaction ends.
+    // A scalar, so no stale Payment is left in the persistence context ahead of transitionStatus
+    @Query(value = """
+            SELECT p.status FROM `transaction` t
+            JOIN payment p ON p.id = t.payment_id
+            WHERE t.gateway_transaction_id = :gatewayTransactionId
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<String> lockPaymentStatusByGatewayTransactionId(@Param("gatewayTransactionId") String gatewayTransactionId);
+
+    /**
+     * Moves a transaction to txStatus, and its payment and status view row along with it, in one statement.
+     * Matches nothing when the transaction is unknown or already in txStatus, so it doubles as compare-and-set.
+     * The view's last_transaction_* columns only change when this transaction is the latest one.
+     * <p>
+     * Relies on idx_transaction_gateway_tx_id: EXPLAIN shows {@code t} as {@code ref} on that index and
+     * {@code p}/{@code v} as {@code eq_ref}, so only the matched rows (and the index gap around that id)
+     * are locked. Without it the UPDATE scans and next-key-locks the whole transaction table.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE `transaction` t
+            JOIN payment p ON p.id = t.payment_id
+            LEFT JOIN payment_status_view v ON v.payment_id = p.id
+            SET t.status = :txStatus,
+                p.status = :paymentStatus,
+                p.updated_at = :now,
+                v.status = :paymentStatus,
+                v.last_transaction_status = IF(v.last_transaction_uuid = t.uuid, :txStatus, v.last_transaction_status),
+                v.updated_at = :now
+            WHERE t.gateway_transaction_id = :gatewayTransactionId
+              AND t.status <> :txStatus
+            """, nativeQuery = true)
+    int transitionStatus(@Param("gatewayTransactionId") String gatewayTransactionId,
+                      @Param("txStatus") String txStatus,
+                      @Param("paymentStatus") String paymentStatus,
+                      @Param("now") Instant now);
 }
@@ -0,0 +1,136 @@
+package com.example.payment_process.service;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Owns the layout of the durable idempotency tier. Results are filed under the expiry bucket
+ * (app.idempotency.bucket-seconds wide) their retention ends in, one RANGE partition per bucket.
+ * Partitions are kept created ahead for the full retention (app.idempotency.ttl-seconds), and
+ * once a bucket has passed its partition is dropped: bulk expiry without DELETE scans or purge lag.
+ * <p>
+ * The table holds no payment data, only key hashes and response snapshots, so it lives on the
+ * default (directory) database alongside the other global tables.
+ */
+@Service
+public class IdempotencyRetentionService {
+
+    Logger log = Logger.getInstance();
+
+    private static final String TABLE = IdempotencyRecordRepository.TABLE;
+    private static final String PAST_PARTITION = "p_past";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final int BUCKETS_AHEAD = 2;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS idempotency_record (
+              key_hash BINARY(32) NOT NULL,
+              expiry_bucket INT NOT NULL,
+              expires_at DATETIME(6) NOT NULL,
+              snapshot VARCHAR(2048) NOT NULL,
+              PRIMARY KEY (key_hash, expiry_bucket)
+            ) ENGINE=InnoDB ROW_FORMAT=COMPRESSED
+            """;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.idempotency.ttl-seconds:86400}")
+    private long retentionSeconds;
+
+    @Value("${app.idempotency.bucket-seconds:3600}")
+    private long bucketSeconds;
+
+    private volatile boolean ready;
+
+    public IdempotencyRetentionService(IdempotencyRecordRepository recordRepository, JdbcTemplate jdbcTemplate) {
+        this.recordRepository = recordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long bucketOf(Instant instant) {
+        return instant.getEpochSecond() / bucketSeconds;
+    }
+
+    public Duration retention() {
+        return Duration.ofSeconds(retentionSeconds);
+    }
+
+    // False until the table exists; the idempotency service uses Redis alone until then
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Ahead of StartupWarmup, so the Redis misses in its idempotency step fall through to the MySQL lookup.
+    // Its short-lived writes stay in Redis, so the durable upsert is first exercised by real traffic
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void createTable() {
+        try {
+            jdbcTemplate.execute(CREATE_TABLE.strip()
+                    + " PARTITION BY RANGE (expiry_bucket) ("
+                    + "PARTITION " + PAST_PARTITION + " VALUES LESS THAN (" + bucketOf(Instant.now()) + "), "
+                    + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+            ready = true;
+            maintainPartitions();
+            log.msg("Idempotency table " + TABLE + " ready");
+        } catch (DataAccessException e) {
+            log.msg("Durable idempotency tier unavailable, Redis only: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.partition-check-ms:300000}",
+            initialDelayString = "${app.idempotency.partition-check-ms:300000}")
+    public void maintainPartitions() {
+        if (!ready) return;
+        try {
+            long current = bucketOf(Instant.now());
+            List<Long> buckets = recordRepository.partitionNames().stream()
+                    .filter(name -> name != null && name.matches("p\\d+"))
+                    .map(name -> Long.parseLong(name.substring(1)))
+                    .sorted()
+                    .toList();
+
+            // 1) Whole buckets whose retention has ended
+            List<String> expired = buckets.stream()
+                    .filter(bucket -> bucket < current)
+                    .map(bucket -> "p" + bucket)
+                    .toList();
+            if (!expired.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+                log.msg("Dropped " + expired.size() + " expired idempotency buckets");
+            }
+
+            // 2) One partition per bucket up to the end of the retention of a result stored now
+            long next = buckets.isEmpty() ? current : Math.max(current, buckets.getLast() + 1);
+            long last = bucketOf(Instant.now().plus(retention())) + BUCKETS_AHEAD;
+            StringBuilder partitions = new StringBuilder();
+            for (long bucket = next; bucket <= last; bucket++) {
+                partitions.append("PARTITION p").append(bucket)
+                        .append(" VALUES LESS THAN (").append(bucket + 1).append("), ");
+            }
+            if (partitions.isEmpty()) {
+                return;
+            }
+
+            // p_future is empty in steady state, so splitting it moves no rows
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                    + partitions + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+        } catch (DataAccessException e) {
+            log.msg("Idempotency partition maintenance failed: " + e.getMessage());
+        }
+    }
+}
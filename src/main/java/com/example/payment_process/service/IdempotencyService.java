@@ -1,26 +1,53 @@
 package com.example.payment_process.service;
 
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.IdempotencySnapshot;
 import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.repository.IdempotencyRecordRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 
+/**
+ * Two-tier idempotency store. Redis is the hot tier and only holds results for
+ * app.idempotency.hot-ttl-seconds, which covers client retry bursts and keeps Redis memory
+ * proportional to recent traffic. MySQL (idempotency_record) is the durable tier and holds
+ * every result for the full retention it was stored with; a Redis miss that hits MySQL is
+ * copied back into Redis. Results whose retention fits in the hot window (short-lived failures)
+ * are kept in Redis only.
+ */
 @Service
 @RequiredArgsConstructor
 public class IdempotencyService {
 
+    Logger log = Logger.getInstance();
+
     private final RedisTemplate<String,Object> redisTemplate;
+    private final IdempotencyRecordRepository recordRepository;
+    private final IdempotencyRetentionService retentionService;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final String PREFIX = "idem:";
 
+    @Value("${app.idempotency.hot-ttl-seconds:300}")
+    private long hotTtlSeconds;
+
     public void storeResponse(String key, PaymentResponse response, Duration ttl) {
         try {
             String json = objectMapper.writeValueAsString(response);
-            redisTemplate.opsForValue().set(PREFIX + key, json, ttl);
+            store(key, json, ttl);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize response for idempotency", e);
         }
@@ -28,22 +55,90 @@ public class IdempotencyService {
 
 
     public PaymentResponse getResponse(String key) {
-        Object val = redisTemplate.opsForValue().get(PREFIX + key);
+        String val = lookup(key);
         if (val == null) return null;
         try {
-            return objectMapper.readValue(val.toString(), PaymentResponse.class);
+            return objectMapper.readValue(val, PaymentResponse.class);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to deserialize idempotent response", e);
         }
     }
 
     public void storeCheckoutUrl(String key, String checkoutUrl, Duration ttl) {
-        redisTemplate.opsForValue().set(PREFIX + key, checkoutUrl, ttl);
+        store(key, checkoutUrl, ttl);
     }
 
     public String getCheckoutUrl(String key) {
-        Object val = redisTemplate.opsForValue().get(PREFIX + key);
-        return val != null ? val.toString() : null;
+        return lookup(key);
+    }
+
+    // Durable tier first: it is the copy that has to outlive the hot tier
+    private void store(String key, String snapshot, Duration retention) {
+        Instant expiresAt = Instant.now().plus(retention);
+        if (retention.getSeconds() > hotTtlSeconds && retentionService.isReady()) {
+            try {
+                recordRepository.upsert(keyHash(key), retentionService.bucketOf(expiresAt), snapshot, expiresAt);
+            } catch (DataAccessException e) {
+                // The payment row is still idempotent by uuid; only the cached response is lost
+                log.msg("Durable idempotency write failed for key " + key + ": " + e.getMessage());
+            }
+        }
+        redisTemplate.opsForValue().set(PREFIX + key, snapshot, hotTtl(retention));
+    }
+
+    private String lookup(String key) {
+        // 1) Hot tier
+        Object hot = redisTemplate.opsForValue().get(PREFIX + key);
+        if (hot != null) {
+            count("hot");
+            return hot.toString();
+        }
+
+        // 2) Durable tier, only buckets that have not expired yet
+        Optional<IdempotencySnapshot> durable = findDurable(key);
+        if (durable.isEmpty()) {
+            count("miss");
+            return null;
+        }
+
+        // 3) Back into the hot tier for the retries that usually follow, never past its retention
+        IdempotencySnapshot snapshot = durable.get();
+        Duration remaining = Duration.between(Instant.now(), snapshot.getExpiresAt());
+        if (!remaining.isNegative() && !remaining.isZero()) {
+            redisTemplate.opsForValue().set(PREFIX + key, snapshot.getValue(), hotTtl(remaining));
+        }
+        count("durable");
+        return snapshot.getValue();
+    }
+
+    private Optional<IdempotencySnapshot> findDurable(String key) {
+        if (!retentionService.isReady()) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        try {
+            return recordRepository.findLive(keyHash(key), retentionService.bucketOf(now), now);
+        } catch (DataAccessException e) {
+            log.msg("Durable idempotency lookup failed for key " + key + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Duration hotTtl(Duration retention) {
+        Duration hot = Duration.ofSeconds(hotTtlSeconds);
+        return retention.compareTo(hot) < 0 ? retention : hot;
+    }
+
+    private void count(String tier) {
+        meterRegistry.counter("app.idempotency.lookup", "tier", tier).increment();
+    }
+
+    private static byte[] keyHash(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
 }
@@ -4,16 +4,21 @@ import com.example.payment_process.design.Logger;
 import com.example.payment_process.dto.OrderRequest;
 import com.example.payment_process.dto.PaymentResponse;
 import com.example.payment_process.dto.PaymentSummary;
+import com.example.payment_process.gateway.GatewayRouter;
+import com.example.payment_process.tracing.PaymentTracing;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
 import com.stripe.net.Webhook;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 @Service("idempotentStripeService")
 @RequiredArgsConstructor
@@ -24,29 +29,52 @@ public class IdempotentStripeService implements PaymentService{
     //@Qualifier("stripeService")
     private final PaymentService stripeService;
     private final IdempotencyService idempotencyService;
+    private final PaymentTracing tracing;
     @Value("${app.idempotency.ttl-seconds:86400}")
     private long ttlSeconds;
 
+    @Value("${app.idempotency.failure-ttl-seconds:30}")
+    private long failureTtlSeconds;
+
 
     @Override
     public PaymentResponse createPayment(OrderRequest request, String idempotencyKey) {
 
-        // 1) Check Redis first
-        PaymentResponse cached = idempotencyService.getResponse(idempotencyKey);
+        // Without a key there is nothing to deduplicate on (and no shared "null" cache entry)
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            log.info("No idempotency key {} provided for payment delegating directly to StripeService", idempotencyKey);
+            return stripeService.createPayment(request, null);
+        }
+
+        // 1) Check the idempotency store (Redis, then MySQL)
+        PaymentResponse cached = tracing.observe("payment.idempotency.lookup",
+                () -> idempotencyService.getResponse(idempotencyKey));
         if (cached != null) {
-            log.info("Idempotency key {} found in Redis, returning cached response", idempotencyKey);
+            // Responses cached before they carried the order have no amount and are not compared
+            if (cached.getAmount() != null && !StripeServiceImpl.sameOrder(request,
+                    cached.getAmount(), cached.getCurrency(), cached.getProductDesc())) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency key was already used for a different order");
+            }
+            log.info("Idempotency key {} found, returning cached response", idempotencyKey);
             return cached;
         }
 
         log.info("Idempotency key {} not found, calling StripeService", idempotencyKey);
 
         // 2) Call actual Stripe service
-        PaymentResponse response = stripeService.createPayment(request, idempotencyKey);
+        PaymentResponse response = tracing.observe("payment.create",
+                () -> stripeService.createPayment(request, idempotencyKey));
 
 
-        log.info("Storing response in Redis for key {}", idempotencyKey);
-        // 3) Store in Redis
-        idempotencyService.storeResponse(idempotencyKey, response, Duration.ofMinutes(5));
+        log.info("Storing response for key {}", idempotencyKey);
+        // 3) Store for the configured retention (Redis keeps it only for the hot window). A failure
+        //    only covers a retry burst, so a later retry with the same key calls the gateway again
+        Duration retention = response != null && response.isSuccess()
+                ? Duration.ofSeconds(ttlSeconds)
+                : Duration.ofSeconds(failureTtlSeconds);
+        tracing.observe("payment.idempotency.store",
+                () -> idempotencyService.storeResponse(idempotencyKey, response, retention));
 
         return response;
     }
@@ -63,28 +91,36 @@ public class IdempotentStripeService implements PaymentService{
         // Use a separate logical key for checkout so it doesn't clash with PaymentIntent
         String checkoutKey = idempotencyKey + "-checkout";
 
-        // 1) Check Redis first
-        String cachedUrl = idempotencyService.getCheckoutUrl(checkoutKey);
+        // 1) Check the idempotency store (Redis, then MySQL)
+        String cachedUrl = tracing.observe("payment.idempotency.lookup",
+                () -> idempotencyService.getCheckoutUrl(checkoutKey));
 
         if (cachedUrl != null) {
-            log.info("Checkout idempotency key {} found in Redis, returning cached checkout URL", checkoutKey);
+            log.info("Checkout idempotency key {} found, returning cached checkout URL", checkoutKey);
             return cachedUrl;
         }
 
         log.info("Checkout idempotency key {} not found, calling StripeService.createCheckoutSession", checkoutKey);
 
         // 2) Call actual Stripe checkout flow
-        String checkoutUrl = stripeService.createCheckoutSession(request, idempotencyKey,baseUrl);
+        String checkoutUrl = tracing.observe("payment.checkout.create",
+                () -> stripeService.createCheckoutSession(request, idempotencyKey,baseUrl));
 
-        // 3) Store in Redis
-        log.info("Storing checkout URL in Redis for key {}", checkoutKey);
-        idempotencyService.storeCheckoutUrl(checkoutKey, checkoutUrl, Duration.ofMinutes(5));
+        // 3) Store for the configured retention
+        log.info("Storing checkout URL for key {}", checkoutKey);
+        tracing.observe("payment.idempotency.store",
+                () -> idempotencyService.storeCheckoutUrl(checkoutKey, checkoutUrl, Duration.ofSeconds(ttlSeconds)));
 
         return checkoutUrl;
     }
 
     @Override
     public String handleWebhook(String sigHeader, String payload) {
+        return handleWebhook(GatewayRouter.DEFAULT_GATEWAY, sigHeader, payload);
+    }
+
+    @Override
+    public String handleWebhook(String gateway, String sigHeader, String payload) {
 
         // 1) Validate header
         if (sigHeader == null || sigHeader.isBlank()) {
@@ -98,7 +134,7 @@ public class IdempotentStripeService implements PaymentService{
             return "Empty payload";
         }
 
-        return stripeService.handleWebhook(sigHeader, payload);
+        return stripeService.handleWebhook(gateway, sigHeader, payload);
 
     }
 
@@ -125,5 +161,18 @@ public class IdempotentStripeService implements PaymentService{
         return stripeService.listAllPayments();
     }
 
+    @Override
+    public Optional<String> getPaymentStatusETag(String uuId) {
+        if (uuId == null || uuId.isBlank()) {
+            return Optional.empty();
+        }
+        return stripeService.getPaymentStatusETag(uuId);
+    }
+
+    @Override
+    public String listAllPaymentsETag() {
+        return stripeService.listAllPaymentsETag();
+    }
+
 
 }
@@ -0,0 +1,269 @@
+package com.example.payment_process.service;
+
+import com.example.payment_process.component.RedisLease;
+import com.example.payment_process.datasource.ReplicationLagGuard;
+import com.example.payment_process.datasource.ShardContext;
+import com.example.payment_process.datasource.ShardRouter;
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.repository.PaymentArchiveRepository;
+import com.example.payment_process.repository.PaymentListVersionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves settled payments (and their transactions) older than app.archive.min-age-days out of the
+ * hot tables into payment_archive / transaction_archive.
+ * <p>
+ * The hot tables keep their unique uuid index and the transaction -> payment foreign key, which
+ * MySQL partitioning does not allow, so partitioning is applied to the archive tables instead:
+ * monthly RANGE COLUMNS(created_at) partitions with compressed rows. Keeping the hot tables small
+ * keeps findByUuid / findByGatewayTransactionId index depth flat.
+ * <p>
+ * Archiving runs in small batches with a pause between them and stops early while the replica
+ * reports lag above its limit. With sharding, every shard archives into its own archive tables.
+ * A Redis lease per shard keeps other instances from archiving the same batch at the same time.
+ */
+@Service
+public class PaymentArchiveService {
+
+    Logger log = Logger.getInstance();
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final int PAST_MONTHS = 24;
+    private static final int MONTHS_AHEAD = 2;
+    private static final String LEASE_PREFIX = "archive:shard:";
+
+    private static final String CREATE_PAYMENT_ARCHIVE = """
+            CREATE TABLE IF NOT EXISTS payment_archive (
+              id BIGINT NOT NULL,
+              uuid VARCHAR(255) NOT NULL,
+              amount BIGINT,
+              currency VARCHAR(255),
+              description VARCHAR(255),
+              status VARCHAR(255),
+              created_at DATETIME(6) NOT NULL,
+              checkout_url VARCHAR(2000),
+              archived_at DATETIME(6) NOT NULL,
+              PRIMARY KEY (id, created_at),
+              KEY idx_payment_archive_uuid (uuid)
+            ) ENGINE=InnoDB ROW_FORMAT=COMPRESSED
+            """;
+
+    private static final String CREATE_TRANSACTION_ARCHIVE = """
+            CREATE TABLE IF NOT EXISTS transaction_archive (
+              id BIGINT NOT NULL,
+              payment_id BIGINT,
+              uuid VARCHAR(255) NOT NULL,
+              gateway_transaction_id VARCHAR(255),
+              gateway VARCHAR(255),
+              status VARCHAR(255),
+              created_at DATETIME(6) NOT NULL,
+              PRIMARY KEY (id, created_at),
+              KEY idx_transaction_archive_payment (payment_id),
+              KEY idx_transaction_archive_gateway_tx (gateway_transaction_id)
+            ) ENGINE=InnoDB ROW_FORMAT=COMPRESSED
+            """;
+
+    private final PaymentArchiveRepository archiveRepository;
+    private final PaymentListVersionRepository listVersionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ReplicationLagGuard> lagGuard;
+    private final ShardRouter shardRouter;
+    private final RedisLease lease;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.min-age-days:90}")
+    private long minAgeDays;
+
+    @Value("${app.archive.settled-statuses:PAYMENT_SUCCEEDED,succeeded,FAILED,canceled}")
+    private List<String> settledStatuses;
+
+    @Value("${app.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.archive.batch-pause-ms:250}")
+    private long batchPauseMs;
+
+    @Value("${app.archive.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.archive.lease-ms:120000}")
+    private long leaseMs;
+
+    public PaymentArchiveService(PaymentArchiveRepository archiveRepository,
+                                 PaymentListVersionRepository listVersionRepository, JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate, ObjectProvider<ReplicationLagGuard> lagGuard,
+                                 ShardRouter shardRouter, RedisLease lease) {
+        this.archiveRepository = archiveRepository;
+        this.listVersionRepository = listVersionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.lagGuard = lagGuard;
+        this.shardRouter = shardRouter;
+        this.lease = lease;
+    }
+
+    // Tables must exist before StartupWarmup's status lookups fall through to the archive
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void createArchiveTables() {
+        if (!enabled) return;
+        for (int shard : shardRouter.shards()) {
+            ShardContext.onShard(shard, () -> {
+                createPartitioned(CREATE_PAYMENT_ARCHIVE, "payment_archive");
+                createPartitioned(CREATE_TRANSACTION_ARCHIVE, "transaction_archive");
+            });
+        }
+        maintainPartitions();
+    }
+
+    // Keep monthly partitions MONTHS_AHEAD in front of now so p_future stays empty
+    @Scheduled(cron = "${app.archive.partition-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) return;
+        for (int shard : shardRouter.shards()) {
+            for (String table : List.of("payment_archive", "transaction_archive")) {
+                try {
+                    ShardContext.onShard(shard, () -> addMonthlyPartitions(table));
+                } catch (RuntimeException e) {
+                    log.msg("Partition maintenance failed for " + table + " on shard " + shard + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:300000}", initialDelayString = "${app.archive.initial-delay-ms:60000}")
+    public void archiveSettledPayments() {
+        if (!enabled) return;
+        for (int shard : shardRouter.shards()) {
+            String leaseName = LEASE_PREFIX + shard;
+            Optional<String> token;
+            try {
+                token = lease.tryAcquire(leaseName, Duration.ofMillis(leaseMs));
+            } catch (RuntimeException e) {
+                log.msg("Archiver skipping shard " + shard + ", lease unavailable: " + e.getMessage());
+                continue;
+            }
+            if (token.isEmpty()) {
+                continue; // another instance is archiving this shard
+            }
+            try {
+                ShardContext.onShard(shard, () -> archiveShard(leaseName, token.get()));
+            } finally {
+                lease.release(leaseName, token.get());
+            }
+        }
+    }
+
+    private void archiveShard(String leaseName, String leaseToken) {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(minAgeDays));
+        long moved = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            // 1) Back off while replicas are behind; stop if the lease was lost (e.g. after a long pause)
+            if (!replicationHealthy()) {
+                log.msg("Archiver pausing: replica lag above limit");
+                break;
+            }
+            if (batch > 0 && !lease.renew(leaseName, leaseToken, Duration.ofMillis(leaseMs))) {
+                log.msg("Archiver stopping: lease " + leaseName + " lost");
+                break;
+            }
+
+            // 2) Pick the next batch of settled, old payments
+            List<Long> ids = archiveRepository.findArchivableIds(cutoff, settledStatuses, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // 3) Copy + delete in one short transaction; the rows leave the payment list
+            Integer count = transactionTemplate.execute(status -> {
+                int archived = archiveRepository.moveToArchive(ids);
+                listVersionRepository.bump();
+                return archived;
+            });
+            moved += count != null ? count : 0;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+
+            // 4) Throttle between batches
+            try {
+                Thread.sleep(batchPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (moved > 0) {
+            log.msg("Archived " + moved + " settled payments created before " + cutoff);
+        }
+    }
+
+    private boolean replicationHealthy() {
+        ReplicationLagGuard guard = lagGuard.getIfAvailable();
+        return guard == null || guard.isReplicaUsable();
+    }
+
+    private void createPartitioned(String createSql, String table) {
+        YearMonth first = YearMonth.now(ZoneOffset.UTC).minusMonths(PAST_MONTHS);
+        jdbcTemplate.execute(createSql.strip()
+                + " PARTITION BY RANGE COLUMNS(created_at) ("
+                + "PARTITION p_past VALUES LESS THAN ('" + first.atDay(1) + "'), "
+                + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+        log.msg("Archive table " + table + " ready");
+    }
+
+    private void addMonthlyPartitions(String table) {
+        List<String> existing = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                String.class, table);
+
+        // Continue after the newest monthly partition, up to MONTHS_AHEAD
+        YearMonth month = existing.stream()
+                .filter(name -> name != null && name.matches("p\\d{6}"))
+                .map(name -> YearMonth.parse(name.substring(1), MONTH))
+                .max(YearMonth::compareTo)
+                .map(newest -> newest.plusMonths(1))
+                .orElse(YearMonth.now(ZoneOffset.UTC).minusMonths(PAST_MONTHS));
+        YearMonth last = YearMonth.now(ZoneOffset.UTC).plusMonths(MONTHS_AHEAD);
+
+        StringBuilder partitions = new StringBuilder();
+        for (; !month.isAfter(last); month = month.plusMonths(1)) {
+            LocalDate upperBound = month.plusMonths(1).atDay(1);
+            partitions.append("PARTITION p").append(MONTH.format(month))
+                    .append(" VALUES LESS THAN ('").append(upperBound).append("'), ");
+        }
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        // p_future is empty in steady state, so splitting it moves no rows
+        jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                + partitions + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+    }
+}
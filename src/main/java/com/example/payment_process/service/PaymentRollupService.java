@@ -0,0 +1,246 @@
+package com.example.payment_process.service;
+
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.dto.PaymentStats;
+import com.example.payment_process.dto.PaymentStatsBucket;
+import com.example.payment_process.dto.RollupGranularity;
+import com.example.payment_process.model.Payment;
+import com.example.payment_process.model.PaymentRollup;
+import com.example.payment_process.repository.PaymentRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained payment counters per hour, currency and status: the payments created in
+ * each hour, counted under their current status. A transition moves the payment from the old status
+ * to the new one within its creation hour, so every payment is counted once.
+ * <ul>
+ *   <li>Every recorded change bumps Redis hash counters for its hour while that hour is in the live window.</li>
+ *   <li>Deltas are also accumulated in memory and upserted into payment_rollup in batches. Deltas not
+ *       yet flushed (up to flush-ms) are lost if the instance dies without a graceful shutdown; the
+ *       payment rows themselves are unaffected.</li>
+ *   <li>Stats read the last live-window hours from Redis and older hours from MySQL, so the
+ *       cost depends on the number of buckets in the range, not on the payment table size.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentRollupService {
+
+    Logger log = Logger.getInstance();
+
+    private static final String REDIS_PREFIX = "rollup:h:";
+    private static final String COUNT_SUFFIX = "|count";
+    private static final String AMOUNT_SUFFIX = "|amount";
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO payment_rollup (bucket_hour, currency, status, payment_count, amount_total) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE payment_count = payment_count + VALUES(payment_count), "
+                    + "amount_total = amount_total + VALUES(amount_total)";
+
+    private final PaymentRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // Deltas not yet written to MySQL
+    private final Map<RollupKey, RollupDelta> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.rollup.live-window-hours:2}")
+    private int liveWindowHours;
+
+    // A new payment: counted under its first status
+    public void record(Payment payment) {
+        record(payment, null);
+    }
+
+    /**
+     * Moves the payment from fromStatus to its current status within its creation-hour bucket
+     * (-1 / -amount on the old status, +1 / +amount on the new one); a null fromStatus adds it.
+     */
+    public void record(Payment payment, String fromStatus) {
+        if (payment.getCurrency() == null || payment.getStatus() == null || payment.getStatus().equals(fromStatus)) {
+            return;
+        }
+
+        long hour = toHour(payment.getCreatedAt() != null ? payment.getCreatedAt() : Instant.now());
+        String currency = payment.getCurrency().toLowerCase(Locale.ROOT);
+        long amount = payment.getAmount() != null ? payment.getAmount() : 0L;
+        Map<String, RollupDelta> deltas = new LinkedHashMap<>();
+        if (fromStatus != null) {
+            deltas.put(fromStatus, new RollupDelta(-1, -amount));
+        }
+        deltas.put(payment.getStatus(), new RollupDelta(1, amount));
+
+        // 1) Queue the deltas for the next batch write
+        deltas.forEach((status, delta) -> pending.merge(new RollupKey(hour, currency, status), delta, RollupDelta::plus));
+
+        // 2) Live window counters in one pipelined round trip; never fail the payment flow on Redis errors.
+        //    Hours before the live window are only read from MySQL
+        if (hour < currentHour() - liveWindowHours + 1) {
+            return;
+        }
+        try {
+            byte[] key = bytes(REDIS_PREFIX + hour);
+            long ttlSeconds = (liveWindowHours + 1) * SECONDS_PER_HOUR;
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                deltas.forEach((status, delta) -> {
+                    String field = currency + "|" + status;
+                    connection.hashCommands().hIncrBy(key, bytes(field + COUNT_SUFFIX), delta.count());
+                    connection.hashCommands().hIncrBy(key, bytes(field + AMOUNT_SUFFIX), delta.amount());
+                });
+                connection.keyCommands().expire(key, ttlSeconds);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.msg("Failed to update live rollup counters: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollup.flush-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 1) Drain per key; increments racing with this simply start a new entry
+        Map<RollupKey, RollupDelta> batch = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            RollupDelta delta = pending.remove(key);
+            if (delta != null) {
+                batch.put(key, delta);
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((key, delta) -> rows.add(new Object[]{
+                key.hour(), key.currency(), key.status(), delta.count(), delta.amount()}));
+
+        // 2) One transaction so a failed batch can be re-queued without double counting
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        } catch (RuntimeException e) {
+            log.msg("Rollup flush failed, re-queueing " + batch.size() + " buckets: " + e.getMessage());
+            batch.forEach((key, delta) -> pending.merge(key, delta, RollupDelta::plus));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public PaymentStats stats(Instant from, Instant to, RollupGranularity granularity) {
+        long fromHour = toHour(from);
+        long toHour = toHour(to);
+        long nowHour = currentHour();
+        long liveStart = nowHour - liveWindowHours + 1;
+
+        Map<RollupKey, RollupDelta> buckets = new TreeMap<>();
+
+        // 1) Live hours from Redis; remember any we could not read
+        long mysqlUpTo = Math.min(toHour, liveStart - 1);
+        for (long hour = Math.max(fromHour, liveStart); hour <= Math.min(toHour, nowHour); hour++) {
+            if (!readLiveHour(hour, granularity, buckets)) {
+                mysqlUpTo = Math.min(toHour, nowHour);
+                buckets.clear();
+                break;
+            }
+        }
+
+        // 2) Flushed history from MySQL
+        if (fromHour <= mysqlUpTo) {
+            for (PaymentRollup row : rollupRepository.findByBucketHourBetween(fromHour, mysqlUpTo)) {
+                buckets.merge(new RollupKey(bucketOf(row.getBucketHour(), granularity), row.getCurrency(), row.getStatus()),
+                        new RollupDelta(row.getPaymentCount(), row.getAmountTotal()), RollupDelta::plus);
+            }
+        }
+
+        List<PaymentStatsBucket> result = buckets.entrySet().stream()
+                .map(e -> PaymentStatsBucket.builder()
+                        .bucketStart(Instant.ofEpochSecond(e.getKey().hour() * SECONDS_PER_HOUR))
+                        .currency(e.getKey().currency())
+                        .status(e.getKey().status())
+                        .count(e.getValue().count())
+                        .amount(e.getValue().amount())
+                        .build())
+                .toList();
+
+        return PaymentStats.builder()
+                .from(from)
+                .to(to)
+                .granularity(granularity)
+                .buckets(result)
+                .build();
+    }
+
+    private boolean readLiveHour(long hour, RollupGranularity granularity, Map<RollupKey, RollupDelta> buckets) {
+        Map<Object, Object> fields;
+        try {
+            fields = stringRedisTemplate.opsForHash().entries(REDIS_PREFIX + hour);
+        } catch (RuntimeException e) {
+            log.msg("Live rollup read failed, falling back to MySQL: " + e.getMessage());
+            return false;
+        }
+
+        long bucket = bucketOf(hour, granularity);
+        fields.forEach((field, value) -> {
+            String name = field.toString();
+            long number = Long.parseLong(value.toString());
+            if (name.endsWith(COUNT_SUFFIX)) {
+                String[] parts = name.substring(0, name.length() - COUNT_SUFFIX.length()).split("\\|", 2);
+                buckets.merge(new RollupKey(bucket, parts[0], parts[1]), new RollupDelta(number, 0), RollupDelta::plus);
+            } else if (name.endsWith(AMOUNT_SUFFIX)) {
+                String[] parts = name.substring(0, name.length() - AMOUNT_SUFFIX.length()).split("\\|", 2);
+                buckets.merge(new RollupKey(bucket, parts[0], parts[1]), new RollupDelta(0, number), RollupDelta::plus);
+            }
+        });
+        return true;
+    }
+
+    private static long bucketOf(long hour, RollupGranularity granularity) {
+        return granularity == RollupGranularity.DAY ? hour - Math.floorMod(hour, 24) : hour;
+    }
+
+    private static long currentHour() {
+        return toHour(Instant.now());
+    }
+
+    private static long toHour(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), SECONDS_PER_HOUR);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record RollupKey(long hour, String currency, String status) implements Comparable<RollupKey> {
+        @Override
+        public int compareTo(RollupKey other) {
+            int byHour = Long.compare(hour, other.hour);
+            if (byHour != 0) return byHour;
+            int byCurrency = currency.compareTo(other.currency);
+            return byCurrency != 0 ? byCurrency : status.compareTo(other.status);
+        }
+    }
+
+    private record RollupDelta(long count, long amount) {
+        RollupDelta plus(RollupDelta other) {
+            return new RollupDelta(count + other.count, amount + other.amount);
+        }
+    }
+}
@@ -6,16 +6,22 @@ import com.example.payment_process.dto.PaymentSummary;
 import com.example.payment_process.model.Payment;
 
 import java.util.List;
+import java.util.Optional;
 
 
 public interface PaymentService {
     PaymentResponse createPayment(OrderRequest request,String idempotencyKey);
     String createCheckoutSession(OrderRequest request,String idempotencyKey,String baseUrl);
     String handleWebhook(String sigHeader, String payload);
+    String handleWebhook(String gateway, String sigHeader, String payload);
     PaymentResponse getPaymentStatus(String uuId);
     PaymentResponse getPaymentStatus(Long id);
     List<PaymentSummary> listAllPayments();
 
+    // ETags from version columns only, so unchanged resources can be answered with 304 cheaply
+    Optional<String> getPaymentStatusETag(String uuId);
+    String listAllPaymentsETag();
+
 
 
 }
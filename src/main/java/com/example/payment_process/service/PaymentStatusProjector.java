@@ -0,0 +1,64 @@
+package com.example.payment_process.service;
+
+import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.model.Payment;
+import com.example.payment_process.model.PaymentStatusView;
+import com.example.payment_process.model.Transaction;
+import com.example.payment_process.repository.PaymentStatusViewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Maintains payment_status_view and maps it to the status API response.
+ * Callers run project() inside the transaction that changes Payment/Transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentStatusProjector {
+
+    private final PaymentStatusViewRepository statusViewRepository;
+
+    public PaymentStatusView project(Payment payment, Transaction latestTx) {
+        return statusViewRepository.save(toView(payment, latestTx));
+    }
+
+    public PaymentStatusView toView(Payment payment, Transaction latestTx) {
+        return PaymentStatusView.builder()
+                .paymentId(payment.getId())
+                .uuid(payment.getUuid())
+                .amount(payment.getAmount())
+                .currency(payment.getCurrency())
+                .description(payment.getDescription())
+                .status(payment.getStatus())
+                .lastTransactionUuid(latestTx != null ? latestTx.getUuid() : null)
+                .lastTransactionStatus(latestTx != null ? latestTx.getStatus() : null)
+                .lastGateway(latestTx != null ? latestTx.getGateway() : null)
+                .lastGatewayTransactionId(latestTx != null ? latestTx.getGatewayTransactionId() : null)
+                .lastTransactionCreatedAt(latestTx != null ? latestTx.getCreatedAt() : null)
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    public PaymentResponse toResponse(Payment payment, Transaction latestTx) {
+        return toResponse(toView(payment, latestTx));
+    }
+
+    public PaymentResponse toResponse(PaymentStatusView view) {
+        return PaymentResponse.builder()
+                .success(true)
+                .message("Payment status fetched successfully")
+                .paymentUuid(view.getUuid())
+                .amount(view.getAmount())
+                .currency(view.getCurrency())
+                .productDesc(view.getDescription())
+                .status(view.getStatus())
+                .lastTransactionUuid(view.getLastTransactionUuid())
+                .lastTransactionStatus(view.getLastTransactionStatus())
+                .lastGateway(view.getLastGateway())
+                .lastGatewayTransactionId(view.getLastGatewayTransactionId())
+                .lastTransactionCreatedAt(view.getLastTransactionCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.payment_process.service;
+
+import com.example.payment_process.component.RedisLease;
+import com.example.payment_process.design.Logger;
+import com.example.payment_process.model.StripePrice;
+import com.example.payment_process.repository.StripePriceRepository;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Price;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PriceCreateParams;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Maps checkout line items (description, amount, currency) to reusable Stripe Prices, so sessions
+ * reference a price id instead of sending inline price_data/product_data every time.
+ * <ul>
+ *   <li>Lookups only touch memory; a miss never waits on Stripe. Once an item has missed min-hits times
+ *       its Price is created in the background and later sessions use it.</li>
+ *   <li>Bounded LRU in memory, persisted in stripe_price and reloaded most-recently-used first on startup.</li>
+ *   <li>A scheduled refresh persists last-used times on every instance; checking prices against Stripe
+ *       and trimming the table to the same bound runs on one instance per interval (Redis lease).
+ *       Other instances drop a deactivated price when a checkout is rejected with it.</li>
+ * </ul>
+ */
+@Service
+public class StripePriceCatalog {
+
+    Logger log = Logger.getInstance();
+
+    private static final String REFRESH_LEASE = "prices:refresh";
+
+    private final StripePriceRepository priceRepository;
+    private final RedisLease lease;
+    private final ExecutorService executor = ContextExecutorService.wrap(
+            Executors.newVirtualThreadPerTaskExecutor(), ContextSnapshotFactory.builder().build()::captureAll);
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<String> usedSinceRefresh = ConcurrentHashMap.newKeySet();
+
+    // Both maps are access-ordered LRUs guarded by this
+    private final Map<String, StripePrice> prices = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StripePrice> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, Integer> missCounts = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    @Value("${app.checkout.price-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.checkout.price-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${app.checkout.price-cache.min-hits:3}")
+    private int minHits;
+
+    @Value("${stripe.api-key}")
+    private String stripeApiKey;
+
+    @Value("${app.checkout.price-cache.refresh-ms:3600000}")
+    private long refreshMs;
+
+    public StripePriceCatalog(StripePriceRepository priceRepository, RedisLease lease) {
+        this.priceRepository = priceRepository;
+        this.lease = lease;
+    }
+
+    // Loaded before StartupWarmup runs and readiness turns UP
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        if (!enabled) return;
+        List<StripePrice> recent = priceRepository.findAllByOrderByLastUsedAtDesc(PageRequest.of(0, maxEntries));
+        synchronized (this) {
+            // Oldest first, so the most recently used end up at the hot end of the LRU
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                prices.put(recent.get(i).getCatalogKey(), recent.get(i));
+            }
+        }
+        log.msg("Loaded " + recent.size() + " cached Stripe prices");
+    }
+
+    /**
+     * Price id for this item if one has been created; otherwise empty, and the caller sends inline price data.
+     */
+    public Optional<String> priceId(String description, Long amount, String currency) {
+        if (!enabled || description == null || description.isBlank() || amount == null || currency == null) {
+            return Optional.empty();
+        }
+        String normalizedCurrency = currency.toLowerCase(Locale.ROOT);
+        String key = catalogKey(description, amount, normalizedCurrency);
+
+        synchronized (this) {
+            StripePrice price = prices.get(key);
+            if (price != null) {
+                usedSinceRefresh.add(key);
+                return Optional.of(price.getPriceId());
+            }
+            // Only items that repeat are worth a Price; one-off descriptions stay inline
+            int misses = missCounts.merge(key, 1, Integer::sum);
+            if (misses < minHits) {
+                return Optional.empty();
+            }
+            missCounts.remove(key);
+        }
+
+        if (inFlight.add(key)) {
+            executor.execute(() -> createPrice(key, description, amount, normalizedCurrency));
+        }
+        return Optional.empty();
+    }
+
+    private void createPrice(String key, String description, Long amount, String currency) {
+        try {
+            // Another instance may have created it already
+            StripePrice price = priceRepository.findByCatalogKey(key)
+                    .orElseGet(() -> createOnStripe(key, description, amount, currency));
+            synchronized (this) {
+                prices.put(key, price);
+            }
+            log.msg("Cached Stripe price " + price.getPriceId() + " for " + currency + " " + amount);
+        } catch (RuntimeException e) {
+            log.msg("Could not create Stripe price for catalog key " + key + ": " + e.getMessage());
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private StripePrice createOnStripe(String key, String description, Long amount, String currency) {
+        PriceCreateParams params = PriceCreateParams.builder()
+                .setCurrency(currency)
+                .setUnitAmount(amount)
+                .setProductData(PriceCreateParams.ProductData.builder()
+                        .setName(description)
+                        .build())
+                .putMetadata("catalog_key", key)
+                .build();
+
+        // Same key on every instance, so concurrent creators get the same Price back from Stripe.
+        // Within Stripe's 24h idempotency window that also replays a Price archived or deleted since,
+        // so a dead one is re-created under a key naming it (again the same on every instance)
+        Price price;
+        try {
+            price = Price.create(params, priceRequestOptions("price-" + key));
+            if (!isActive(price.getId())) {
+                log.msg("Stripe replayed inactive price " + price.getId() + ", creating a new one");
+                price = Price.create(params, priceRequestOptions("price-" + key + "-after-" + price.getId()));
+            }
+        } catch (StripeException e) {
+            throw new RuntimeException(e);
+        }
+
+        try {
+            return priceRepository.save(StripePrice.builder()
+                    .catalogKey(key)
+                    .description(description)
+                    .amount(amount)
+                    .currency(currency)
+                    .priceId(price.getId())
+                    .productId(price.getProduct())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            return priceRepository.findByCatalogKey(key).orElseThrow(() -> e);
+        }
+    }
+
+    private RequestOptions priceRequestOptions(String idempotencyKey) {
+        return RequestOptions.builder()
+                .setApiKey(stripeApiKey)
+                .setIdempotencyKey(idempotencyKey)
+                .build();
+    }
+
+    private boolean isActive(String priceId) throws StripeException {
+        try {
+            return Boolean.TRUE.equals(Price.retrieve(priceId, RequestOptions.builder().setApiKey(stripeApiKey).build())
+                    .getActive());
+        } catch (InvalidRequestException e) {
+            return false; // no such price
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.price-cache.refresh-ms:3600000}",
+            initialDelayString = "${app.checkout.price-cache.refresh-ms:3600000}")
+    public void refresh() {
+        if (!enabled) return;
+
+        // 1) Persist LRU order so a restart reloads the hot items
+        Set<String> used = new HashSet<>(usedSinceRefresh);
+        usedSinceRefresh.removeAll(used);
+        if (!used.isEmpty()) {
+            priceRepository.touch(used, Instant.now());
+        }
+
+        // 2) The Stripe check and trim need one instance per interval: the lease is left to expire, not released
+        Optional<String> token;
+        try {
+            token = lease.tryAcquire(REFRESH_LEASE, Duration.ofMillis(refreshMs));
+        } catch (RuntimeException e) {
+            log.msg("Stripe price refresh skipped, lease unavailable: " + e.getMessage());
+            return;
+        }
+        if (token.isEmpty()) {
+            return; // another instance refreshed within this interval
+        }
+
+        // 3) Drop prices archived or deleted on Stripe; sessions fall back to inline data until re-created
+        List<StripePrice> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(prices.values());
+        }
+        for (StripePrice cached : snapshot) {
+            try {
+                if (!isActive(cached.getPriceId())) {
+                    evict(cached);
+                }
+            } catch (StripeException e) {
+                log.msg("Stripe price refresh stopped: " + e.getMessage());
+                break;
+            }
+        }
+
+        // 4) Keep the table within the same bound as memory
+        List<StripePrice> boundary = priceRepository.findAllByOrderByLastUsedAtDesc(PageRequest.of(maxEntries, 1));
+        if (!boundary.isEmpty()) {
+            int trimmed = priceRepository.deleteByLastUsedAtBefore(boundary.get(0).getLastUsedAt());
+            log.msg("Trimmed " + trimmed + " least recently used Stripe prices");
+        }
+    }
+
+    /**
+     * Drops a cached price that Stripe rejected at checkout (archived or deleted since the last refresh).
+     * Only evicts while the cache still maps the item to that id; the item earns a new Price the usual way.
+     */
+    public void evictRejected(String description, Long amount, String currency, String priceId) {
+        String key = catalogKey(description, amount, currency.toLowerCase(Locale.ROOT));
+        StripePrice cached;
+        synchronized (this) {
+            cached = prices.get(key);
+        }
+        if (cached != null && cached.getPriceId().equals(priceId)) {
+            evict(cached);
+        }
+    }
+
+    private void evict(StripePrice price) {
+        synchronized (this) {
+            prices.remove(price.getCatalogKey());
+        }
+        priceRepository.deleteById(price.getId());
+        log.msg("Evicted inactive Stripe price " + price.getPriceId());
+    }
+
+    static String catalogKey(String description, long amount, String currency) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((currency + "|" + amount + "|" + description).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
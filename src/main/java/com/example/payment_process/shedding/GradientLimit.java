@@ -0,0 +1,63 @@
+package com.example.payment_process.shedding;
+
+/**
+ * Concurrency limit driven by latency, in the style of a gradient / Vegas limiter. Each completed
+ * request is a sample. The long-term average latency is the baseline; the gradient is
+ * {@code tolerance * longRtt / sampleRtt}, clamped to [0.5, 1]. It stays at 1 while latency is
+ * near the baseline and falls as requests start to queue. The new limit is
+ * {@code limit * gradient + sqrt(limit)}, so an unqueued service keeps probing upward by a
+ * sqrt-sized headroom. It is blended in with {@code smoothing} and kept within [min, max].
+ */
+public class GradientLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final int longWindow;
+
+    private volatile double limit;
+    private double longRttNanos;
+    private long samples;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                         double smoothing, int longWindow) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+        this.limit = initialLimit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    // inflight is the number of requests that were running when this one finished, itself included
+    public synchronized void onSample(long rttNanos, int inflight) {
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        // 1) Long-term baseline: plain average until the window is full, then an EWMA over it
+        samples++;
+        double alpha = samples < longWindow ? 1.0 / samples : 2.0 / (longWindow + 1);
+        longRttNanos += alpha * (rttNanos - longRttNanos);
+
+        // 2) After an overload the baseline itself is inflated; let it decay toward recovered latency
+        if (longRttNanos / rttNanos > 2.0) {
+            longRttNanos *= 0.95;
+        }
+
+        // 3) Don't grow on samples from an idle service: low latency says nothing about a higher limit
+        if (inflight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.payment_process.shedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adaptive load shedding for /api/payment. Requests are classified by endpoint, admitted by the
+ * {@link PriorityConcurrencyLimiter} and otherwise answered with 503 and Retry-After before any
+ * security, controller or database work. Admitted requests feed their latency back into the limit.
+ * <p>
+ * Metrics: app.shedding.limit, app.shedding.inflight and app.shedding.rejected{priority}.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/payment/";
+
+    private final PriorityConcurrencyLimiter limiter;
+    private final LoadSheddingProperties properties;
+    private final Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+
+    public LoadSheddingFilter(PriorityConcurrencyLimiter limiter, LoadSheddingProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.properties = properties;
+        meterRegistry.gauge("app.shedding.limit", limiter, PriorityConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("app.shedding.inflight", limiter, PriorityConcurrencyLimiter::getInflight);
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, Counter.builder("app.shedding.rejected")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPriority priority = classify(request);
+
+        // 1) Over this priority's share of the limit: refuse before doing any work
+        if (!limiter.tryAcquire(priority)) {
+            rejected.get(priority).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+            return;
+        }
+
+        // 2) Admitted: the time spent here is the latency sample for the limit. A request that went
+        //    async (change feed long poll) has given its thread back; its wait is not latency
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - started);
+            }
+        }
+    }
+
+    static RequestPriority classify(String method, String path) {
+        if (HttpMethod.POST.matches(method)
+                && (path.startsWith(API_PREFIX + "webhook/")
+                || path.equals(API_PREFIX + "create")
+                || path.equals(API_PREFIX + "stripe/checkout"))) {
+            return RequestPriority.CRITICAL;
+        }
+        if (HttpMethod.GET.matches(method)
+                && (path.startsWith(API_PREFIX + "status/") || path.equals(API_PREFIX + "list"))) {
+            return RequestPriority.SHEDDABLE;
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    private static RequestPriority classify(HttpServletRequest request) {
+        return classify(request.getMethod(), path(request));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.payment_process.shedding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * app.shedding.* settings for the adaptive concurrency limit in front of /api/payment.
+ */
+@Data
+@ConfigurationProperties("app.shedding")
+public class LoadSheddingProperties {
+
+    private boolean enabled = true;
+
+    // Concurrent requests allowed before any latency has been measured
+    private int initialLimit = 50;
+    private int minLimit = 10;
+    private int maxLimit = 200;
+
+    // Latency may grow to rttTolerance x the long-term average before the limit shrinks
+    private double rttTolerance = 1.5;
+
+    // Weight of each new limit estimate, and window (in samples) of the long-term latency average
+    private double smoothing = 0.2;
+    private int longWindow = 600;
+
+    // Share of the limit NORMAL and SHEDDABLE requests may occupy; CRITICAL may use all of it
+    private double normalShare = 0.85;
+    private double sheddableShare = 0.7;
+
+    private int retryAfterSeconds = 1;
+}
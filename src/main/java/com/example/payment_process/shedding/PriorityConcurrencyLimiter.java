@@ -0,0 +1,61 @@
+package com.example.payment_process.shedding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission against a {@link GradientLimit}: a request of a given priority is admitted while the
+ * number in flight is below that priority's share of the current limit. CRITICAL requests can
+ * always use the headroom that lower classes are refused.
+ */
+public class PriorityConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final LoadSheddingProperties properties;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    public PriorityConcurrencyLimiter(GradientLimit limit, LoadSheddingProperties properties) {
+        this.limit = limit;
+        this.properties = properties;
+    }
+
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = allowed(priority);
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Every admitted request releases exactly once, with its latency
+    public void release(long rttNanos) {
+        int current = inflight.getAndDecrement();
+        limit.onSample(rttNanos, current);
+    }
+
+    // Release without a sample, for requests whose time here is not service latency (long polls)
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private int allowed(RequestPriority priority) {
+        double share = switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> properties.getNormalShare();
+            case SHEDDABLE -> properties.getSheddableShare();
+        };
+        return Math.max(1, (int) (limit.getLimit() * share));
+    }
+}
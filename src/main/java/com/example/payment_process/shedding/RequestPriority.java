@@ -0,0 +1,14 @@
+package com.example.payment_process.shedding;
+
+/**
+ * Admission classes, highest first. CRITICAL may use the whole concurrency limit; lower classes
+ * only a share of it, so under pressure they are shed before anything critical waits.
+ */
+public enum RequestPriority {
+    // Stripe webhooks, payment and checkout creation
+    CRITICAL,
+    // Audit history, stats
+    NORMAL,
+    // List scans and status polling, which clients repeat anyway
+    SHEDDABLE
+}
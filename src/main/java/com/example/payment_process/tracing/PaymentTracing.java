@@ -0,0 +1,75 @@
+package com.example.payment_process.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Link;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Stage spans for the payment flow, and the {@code traceparent} hand-off through Stripe metadata
+ * that lets a webhook, delivered minutes later on another request, continue the payment's trace.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentTracing {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    private final ObservationRegistry observationRegistry;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public <T> T observe(String name, Supplier<T> work) {
+        return Observation.createNotStarted(name, observationRegistry).observe(work);
+    }
+
+    public void observe(String name, Runnable work) {
+        Observation.createNotStarted(name, observationRegistry).observe(work);
+    }
+
+    // W3C traceparent of the current span, to be stored in Stripe object metadata
+    public Optional<String> currentTraceparent() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return Optional.empty();
+        }
+        Map<String, String> carrier = new LinkedHashMap<>();
+        propagator.inject(span.context(), carrier, Map::put);
+        return Optional.ofNullable(carrier.get(TRACEPARENT));
+    }
+
+    /**
+     * Runs {@code work} in a span whose parent is {@code traceparent} (from Stripe metadata),
+     * linked to the current span (the webhook request). Without a traceparent this is a plain stage span.
+     */
+    public <T> T continueTrace(String traceparent, String name, Supplier<T> work) {
+        if (traceparent == null || traceparent.isBlank()) {
+            return observe(name, work);
+        }
+
+        Span.Builder builder = propagator.extract(Map.of(TRACEPARENT, traceparent), Map::get).name(name);
+        Span current = tracer.currentSpan();
+        if (current != null) {
+            builder.addLink(new Link(current.context()));
+        }
+
+        Span span = builder.start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return work.get();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
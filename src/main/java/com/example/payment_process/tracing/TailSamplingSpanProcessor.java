@@ -0,0 +1,204 @@
+package com.example.payment_process.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail sampling in-process: ended spans are buffered per trace and the keep/drop decision is made
+ * once the local root span ends, when the whole request is known. A trace is kept if any span
+ * failed, if any span took at least the latency threshold, or by a baseline ratio; kept spans go
+ * to the delegate (a batch exporter). Spans ending after the decision follow it. Traces whose root
+ * never ends here are decided after {@code decisionWaitMs}.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<String> HTTP_STATUS = AttributeKey.stringKey("status");
+    private static final int DECISION_CACHE_SIZE = 10_000;
+
+    private final SpanProcessor delegate;
+    private final long latencyThresholdNanos;
+    private final double baselineRatio;
+    private final long decisionWaitNanos;
+    private final int maxBufferedTraces;
+
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> decisions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > DECISION_CACHE_SIZE;
+        }
+    };
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("tail-sampler").daemon().factory());
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, long latencyThresholdMs, double baselineRatio,
+                                     long decisionWaitMs, int maxBufferedTraces) {
+        this.delegate = delegate;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.baselineRatio = baselineRatio;
+        this.decisionWaitNanos = TimeUnit.MILLISECONDS.toNanos(decisionWaitMs);
+        this.maxBufferedTraces = maxBufferedTraces;
+        long sweepMs = Math.max(100, decisionWaitMs / 4);
+        sweeper.scheduleWithFixedDelay(this::decideExpired, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+
+        // 1) Trace already decided: late spans follow the decision
+        Boolean decision;
+        synchronized (decisions) {
+            decision = decisions.get(traceId);
+        }
+        if (decision != null) {
+            if (decision) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+
+        // 2) Buffer; when the buffer is full new traces are decided span by span instead
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null && pending.size() >= maxBufferedTraces) {
+            if (keep(isError(span), span.getLatencyNanos())) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+        if (trace == null) {
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(System.nanoTime()));
+        }
+        if (!trace.add(span)) {
+            // decided between lookup and add
+            onEnd(span);
+            return;
+        }
+
+        // 3) Local root ended: the request is complete on this service
+        if (isLocalRoot(span)) {
+            decide(traceId);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        sweeper.shutdownNow();
+        List.copyOf(pending.keySet()).forEach(this::decide);
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    int bufferedTraces() {
+        return pending.size();
+    }
+
+    void decideExpired() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, PendingTrace>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PendingTrace> entry = it.next();
+            if (now - entry.getValue().firstSeenNanos >= decisionWaitNanos) {
+                decide(entry.getKey());
+            }
+        }
+    }
+
+    private void decide(String traceId) {
+        PendingTrace trace = pending.remove(traceId);
+        if (trace == null) {
+            return;
+        }
+        List<ReadableSpan> spans;
+        boolean keep;
+        synchronized (decisions) {
+            synchronized (trace) {
+                trace.closed = true;
+                spans = trace.spans;
+                keep = keep(trace.error, trace.maxLatencyNanos);
+            }
+            decisions.put(traceId, keep);
+        }
+        if (keep) {
+            spans.forEach(delegate::onEnd);
+        }
+    }
+
+    private boolean keep(boolean error, long latencyNanos) {
+        return error
+                || latencyNanos >= latencyThresholdNanos
+                || ThreadLocalRandom.current().nextDouble() < baselineRatio;
+    }
+
+    private static boolean isLocalRoot(ReadableSpan span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    // Span status ERROR (exceptions), or an HTTP server span that answered 5xx without one
+    private static boolean isError(ReadableSpan span) {
+        if (span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR) {
+            return true;
+        }
+        String status = span.getAttribute(HTTP_STATUS);
+        return status != null && status.startsWith("5");
+    }
+
+    private static final class PendingTrace {
+
+        private final long firstSeenNanos;
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private boolean error;
+        private long maxLatencyNanos;
+        private boolean closed;
+
+        private PendingTrace(long firstSeenNanos) {
+            this.firstSeenNanos = firstSeenNanos;
+        }
+
+        private synchronized boolean add(ReadableSpan span) {
+            if (closed) {
+                return false;
+            }
+            spans.add(span);
+            error |= isError(span);
+            maxLatencyNanos = Math.max(maxLatencyNanos, span.getLatencyNanos());
+            return true;
+        }
+    }
+}
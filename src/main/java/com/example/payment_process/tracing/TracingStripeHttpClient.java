@@ -0,0 +1,64 @@
+package com.example.payment_process.tracing;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.net.HttpURLConnectionClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * stripe-java HTTP client with one client span per Stripe API call. The span's context is sent
+ * as W3C {@code traceparent}, so Stripe request logs can be matched to our traces.
+ */
+public class TracingStripeHttpClient extends HttpURLConnectionClient {
+
+    private final ObservationRegistry observationRegistry;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public TracingStripeHttpClient(ObservationRegistry observationRegistry, Tracer tracer, Propagator propagator) {
+        this.observationRegistry = observationRegistry;
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws ApiConnectionException {
+        Observation observation = Observation.createNotStarted("stripe.api.request", observationRegistry)
+                .contextualName("stripe " + request.method() + " " + request.url().getPath())
+                .lowCardinalityKeyValue("method", String.valueOf(request.method()))
+                .highCardinalityKeyValue("path", request.url().getPath());
+
+        return observation.observeChecked(() -> {
+            StripeResponse response = super.request(withTraceHeaders(request));
+            observation.lowCardinalityKeyValue("status", String.valueOf(response.code()));
+            if (response.code() >= 500) {
+                observation.error(new IllegalStateException("Stripe answered " + response.code()));
+            }
+            return response;
+        });
+    }
+
+    // Runs inside the observation, so the current span is the client span
+    private StripeRequest withTraceHeaders(StripeRequest request) {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return request;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        propagator.inject(span.context(), headers, Map::put);
+
+        StripeRequest traced = request;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            traced = traced.withAdditionalHeader(header.getKey(), header.getValue());
+        }
+        return traced;
+    }
+}
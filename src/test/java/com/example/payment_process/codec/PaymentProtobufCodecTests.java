@@ -0,0 +1,96 @@
+package com.example.payment_process.codec;
+
+import com.example.payment_process.dto.OrderRequest;
+import com.example.payment_process.dto.PaymentResponse;
+import com.example.payment_process.dto.PaymentSummary;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentProtobufCodecTests {
+
+    @Test
+    void roundTripsFullPaymentResponse() throws IOException {
+        PaymentResponse response = PaymentResponse.builder()
+                .success(true)
+                .paymentId("42")
+                .message("Payment status")
+                .orderId(42L)
+                .productDesc("Annual plan")
+                .amount(60000L)
+                .currency("usd")
+                .status("PAYMENT_SUCCEEDED")
+                .paymentUuid("pay-1-intent")
+                .lastTransactionUuid("tx-1")
+                .lastTransactionStatus("SUCCEEDED")
+                .lastGateway("STRIPE")
+                .lastGatewayTransactionId("pi_123")
+                .lastTransactionCreatedAt(Instant.parse("2025-01-15T10:15:30.123456789Z"))
+                .build();
+
+        byte[] bytes = encode(out -> PaymentProtobufCodec.write(response, out));
+
+        assertThat(PaymentProtobufCodec.readPaymentResponse(CodedInputStream.newInstance(bytes))).isEqualTo(response);
+    }
+
+    @Test
+    void omitsNullFields() throws IOException {
+        PaymentResponse response = PaymentResponse.builder()
+                .success(false)
+                .message("x")
+                .build();
+
+        byte[] bytes = encode(out -> PaymentProtobufCodec.write(response, out));
+
+        // tag + length + one byte: success=false and every null field are absent
+        assertThat(bytes).hasSize(3);
+        PaymentResponse decoded = PaymentProtobufCodec.readPaymentResponse(CodedInputStream.newInstance(bytes));
+        assertThat(decoded).isEqualTo(response);
+        assertThat(decoded.getAmount()).isNull();
+    }
+
+    @Test
+    void skipsUnknownFields() throws IOException {
+        byte[] bytes = encode(out -> {
+            out.writeInt64(1, 1500L);
+            out.writeString(99, "added by a newer client");
+            out.writeString(2, "eur");
+        });
+
+        OrderRequest request = PaymentProtobufCodec.readOrderRequest(CodedInputStream.newInstance(bytes));
+
+        assertThat(request).isEqualTo(OrderRequest.builder().amount(1500L).currency("eur").build());
+    }
+
+    @Test
+    void roundTripsSummaryList() throws IOException {
+        List<PaymentSummary> summaries = List.of(
+                PaymentSummary.builder().uuid("a").amount(100L).currency("usd").status("CREATED")
+                        .createdAt(Instant.ofEpochSecond(1_700_000_000L)).build(),
+                PaymentSummary.builder().uuid("b").description("no amount yet").build(),
+                PaymentSummary.builder().uuid("c").createdAt(Instant.EPOCH).build());
+
+        byte[] bytes = encode(out -> PaymentProtobufCodec.writeSummaries(summaries, out));
+
+        assertThat(PaymentProtobufCodec.readSummaries(CodedInputStream.newInstance(bytes))).isEqualTo(summaries);
+    }
+
+    private interface Writer {
+        void write(CodedOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writer.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.payment_process.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRouterTests {
+
+    @Test
+    void idsDecodeToTheShardThatIssuedThem() {
+        ShardRouter router = new ShardRouter(3, 16);
+        for (int shard = 0; shard < 3; shard++) {
+            // auto_increment_offset = shard + 1, auto_increment_increment = 16
+            for (long n = 0; n < 100; n++) {
+                assertThat(router.shardForId(shard + 1 + n * 16)).isEqualTo(shard);
+            }
+        }
+    }
+
+    @Test
+    void uuidsSpreadOverAllShardsDeterministically() {
+        ShardRouter router = new ShardRouter(4, 16);
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            String uuid = UUID.randomUUID() + "-intent";
+            int shard = router.shardForUuid(uuid);
+            assertThat(router.shardForUuid(uuid)).isEqualTo(shard);
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(800, 1200);
+        }
+    }
+
+    @Test
+    void singleShardRoutesEverythingToTheDirectory() {
+        ShardRouter router = new ShardRouter(1, 1);
+        assertThat(router.isSharded()).isFalse();
+        assertThat(router.shardForUuid("any")).isZero();
+        assertThat(router.shardForId(12345L)).isZero();
+    }
+
+    @Test
+    void lookupsFallBackToTheDirectoryShard() {
+        ShardRouter router = new ShardRouter(3, 16);
+        assertThat(router.lookupShards(2)).containsExactly(2, 0);
+        assertThat(router.lookupShards(0)).containsExactly(0);
+
+        // A pre-sharding id (stride 1) decodes to some shard, the row itself is on shard 0
+        assertThat(router.lookupShards(router.shardForId(2L))).containsExactly(1, 0);
+
+        assertThat(new ShardRouter(3, 16, false).lookupShards(2)).containsExactly(2);
+    }
+
+    @Test
+    void mergesPerShardResultsInOrder() {
+        List<List<Integer>> perShard = List.of(
+                List.of(9, 6, 3),
+                List.of(8, 5, 2),
+                List.of(),
+                List.of(7, 4, 1, 0));
+
+        List<Integer> merged = ShardRouter.mergeSorted(perShard, Comparator.reverseOrder());
+
+        assertThat(merged).containsExactly(9, 8, 7, 6, 5, 4, 3, 2, 1, 0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.payment_process.feed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeCursorTests {
+
+    @Test
+    void blankCursorStartsEveryPartitionAtTheBeginning() {
+        ChangeCursor cursor = ChangeCursor.parse(null, 3);
+
+        assertThat(cursor.partitions()).isEqualTo(3);
+        assertThat(cursor.toString()).isEqualTo("0-0,0-0,0-0");
+        assertThat(ChangeCursor.parse(" ", 3).toString()).isEqualTo("0-0,0-0,0-0");
+    }
+
+    @Test
+    void advanceMovesOnePartitionAndRoundTrips() {
+        ChangeCursor start = ChangeCursor.start(3);
+        ChangeCursor next = start.advance(1, "1718000000000-2");
+
+        assertThat(start.lastId(1)).isEqualTo("0-0");
+        assertThat(next.toString()).isEqualTo("0-0,1718000000000-2,0-0");
+        assertThat(ChangeCursor.parse(next.toString(), 3).lastId(1)).isEqualTo("1718000000000-2");
+    }
+
+    @Test
+    void rejectsMalformedOrMismatchedCursors() {
+        assertThatThrownBy(() -> ChangeCursor.parse("0-0,0-0", 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChangeCursor.parse("0-0,abc,0-0", 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChangeCursor.parse("0-0,,0-0", 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void changeIdsCarryTheirPartition() {
+        assertThat(PaymentChangeFeed.partitionOfId("2:1718000000000-0")).isEqualTo(2);
+        assertThat(PaymentChangeFeed.streamId("2:1718000000000-0")).isEqualTo("1718000000000-0");
+        assertThatThrownBy(() -> PaymentChangeFeed.partitionOfId("1718000000000-0"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.payment_process.feed;
+
+import com.example.payment_process.dto.PaymentChange;
+import com.example.payment_process.dto.PaymentChangeBatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentChangeFeedTests {
+
+    @Test
+    void mergesPartitionsInStreamOrder() {
+        ChangeCursor cursor = ChangeCursor.start(3);
+
+        PaymentChangeBatch batch = PaymentChangeFeed.batch(cursor, List.of(
+                List.of(change("0:100-0"), change("0:300-0")),
+                List.of(change("1:100-1"), change("1:200-0")),
+                List.of()), 10);
+
+        // Same millisecond: sequence first, then partition
+        assertThat(batch.getChanges()).extracting(PaymentChange::getId)
+                .containsExactly("0:100-0", "1:100-1", "1:200-0", "0:300-0");
+        assertThat(batch.getCursor()).isEqualTo("300-0,200-0,0-0");
+    }
+
+    @Test
+    void truncatedBatchAdvancesOnlyPastWhatItReturns() {
+        ChangeCursor cursor = ChangeCursor.parse("50-0,50-0,50-0", 3);
+
+        PaymentChangeBatch batch = PaymentChangeFeed.batch(cursor, List.of(
+                List.of(change("0:100-0"), change("0:400-0")),
+                List.of(change("1:200-0"), change("1:300-0")),
+                List.of(change("2:250-0"))), 3);
+
+        assertThat(batch.getChanges()).extracting(PaymentChange::getId)
+                .containsExactly("0:100-0", "1:200-0", "2:250-0");
+        // 1:300-0 and 0:400-0 were read but not returned: the next read must see them again
+        assertThat(batch.getCursor()).isEqualTo("100-0,200-0,250-0");
+
+        PaymentChangeBatch next = PaymentChangeFeed.batch(ChangeCursor.parse(batch.getCursor(), 3), List.of(
+                List.of(change("0:400-0")),
+                List.of(change("1:300-0")),
+                List.of()), 3);
+        assertThat(next.getChanges()).extracting(PaymentChange::getId).containsExactly("1:300-0", "0:400-0");
+        assertThat(next.getCursor()).isEqualTo("400-0,300-0,250-0");
+    }
+
+    @Test
+    void emptyReadKeepsTheCursor() {
+        ChangeCursor cursor = ChangeCursor.parse("100-0,0-0", 2);
+
+        PaymentChangeBatch batch = PaymentChangeFeed.batch(cursor, List.of(List.of(), List.of()), 10);
+
+        assertThat(batch.getChanges()).isEmpty();
+        assertThat(batch.getCursor()).isEqualTo("100-0,0-0");
+    }
+
+    private static PaymentChange change(String id) {
+        return PaymentChange.builder().id(id).build();
+    }
+}
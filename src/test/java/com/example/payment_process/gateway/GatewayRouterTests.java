@@ -0,0 +1,98 @@
+package com.example.payment_process.gateway;
+
+import com.example.payment_process.dto.GatewayIntent;
+import com.example.payment_process.dto.OrderRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GatewayRouterTests {
+
+    private static final OrderRequest ORDER = OrderRequest.builder()
+            .amount(1000L)
+            .currency("usd")
+            .description("router test")
+            .build();
+
+    private GatewayRouter router;
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) router.shutdown();
+    }
+
+    @Test
+    void tailLatencyStaysBoundedWhenOneGatewayDegrades() {
+        StubPaymentGateway primary = new StubPaymentGateway("A", 5);
+        StubPaymentGateway secondary = new StubPaymentGateway("B", 10);
+        router = newRouter(200, primary, secondary);
+
+        // Warm up scores, then make A hang well past the timeout
+        for (int i = 0; i < 20; i++) router.createPaymentIntent(ORDER, "warm-" + i);
+        primary.setLatencyMs(2_000);
+
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long started = System.nanoTime();
+            GatewayIntent intent = router.createPaymentIntent(ORDER, "key-" + i);
+            latencies.add((System.nanoTime() - started) / 1_000_000);
+            assertThat(intent.getId()).startsWith("pi_");
+        }
+
+        Collections.sort(latencies);
+        long p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+
+        // Worst case is one timed-out attempt plus the healthy gateway, never the 2s hang
+        assertThat(p99).isLessThan(200 + 200);
+        assertThat(router.scores().get("A")).isGreaterThan(router.scores().get("B"));
+    }
+
+    @Test
+    void failsOverOnRetryableError() {
+        StubPaymentGateway broken = new StubPaymentGateway("A", 1);
+        StubPaymentGateway healthy = new StubPaymentGateway("B", 1);
+        broken.setFailing(true);
+        router = newRouter(500, broken, healthy);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(router.createPaymentIntent(ORDER, "key-" + i).getGateway()).isEqualTo("B");
+        }
+    }
+
+    @Test
+    void doesNotFailOverOnRejectedRequest() {
+        StubPaymentGateway first = new StubPaymentGateway("A", 1);
+        StubPaymentGateway second = new StubPaymentGateway("B", 1);
+        first.setRejecting(true);
+        second.setRejecting(true);
+        router = newRouter(500, first, second);
+
+        assertThatThrownBy(() -> router.createPaymentIntent(ORDER, "key"))
+                .isInstanceOf(GatewayException.class)
+                .hasMessageContaining("declined");
+        assertThat(first.calls() + second.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownGatewayIsEmptyOnFindAndRejectedOnGateway() {
+        router = newRouter(500, new StubPaymentGateway("A", 1));
+
+        assertThat(router.find("A")).isPresent();
+        assertThat(router.find("STRIPE_NOPE")).isEmpty();
+        assertThatThrownBy(() -> router.gateway("STRIPE_NOPE"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static GatewayRouter newRouter(int timeoutMs, PaymentGateway... gateways) {
+        GatewayProperties properties = new GatewayProperties();
+        properties.setTimeoutMs(timeoutMs);
+        properties.setProbeRatio(0);
+        return new GatewayRouter(List.of(gateways), properties);
+    }
+}
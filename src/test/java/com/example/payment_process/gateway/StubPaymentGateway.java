@@ -0,0 +1,73 @@
+package com.example.payment_process.gateway;
+
+import com.example.payment_process.dto.GatewayIntent;
+import com.example.payment_process.dto.OrderRequest;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local gateway with injectable latency and failures, for routing tests.
+ */
+class StubPaymentGateway implements PaymentGateway {
+
+    private final String name;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile long latencyMs;
+    private volatile boolean failing;
+    private volatile boolean rejecting;
+
+    StubPaymentGateway(String name, long latencyMs) {
+        this.name = name;
+        this.latencyMs = latencyMs;
+    }
+
+    void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    void setRejecting(boolean rejecting) {
+        this.rejecting = rejecting;
+    }
+
+    int calls() {
+        return calls.get();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String webhookSecret() {
+        return "whsec_" + name;
+    }
+
+    @Override
+    public GatewayIntent createPaymentIntent(OrderRequest request, String idempotencyKey) {
+        calls.incrementAndGet();
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException(name + " interrupted", true, e);
+        }
+        if (rejecting) {
+            throw new GatewayException("Your card was declined.", false);
+        }
+        if (failing) {
+            throw new GatewayException(name + " unavailable", true);
+        }
+        return GatewayIntent.builder()
+                .gateway(name)
+                .id("pi_" + UUID.randomUUID())
+                .clientSecret("secret")
+                .status("requires_payment_method")
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.payment_process.journal;
+
+import com.example.payment_process.dto.AuditEventType;
+import com.example.payment_process.dto.AuditRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentJournalTests {
+
+    // 4 records per segment, so a handful of appends exercises rolling and the sidecar index
+    private static final long SEGMENT_BYTES = 4L * AuditRecordCodec.RECORD_SIZE;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysHistoryAcrossSegmentsAndRestarts() {
+        PaymentJournal journal = new PaymentJournal(dir, SEGMENT_BYTES, 1, true);
+        journal.open();
+        for (int i = 0; i < 10; i++) {
+            journal.append(record(i % 2 == 0 ? "pay-a" : "pay-b", "STATUS_" + i));
+        }
+        journal.close();
+
+        PaymentJournal reopened = new PaymentJournal(dir, SEGMENT_BYTES, 1, true);
+        reopened.open();
+        long next = reopened.append(record("pay-a", "STATUS_10"));
+
+        List<AuditRecord> history = reopened.history("pay-a");
+        assertThat(next).isEqualTo(10);
+        assertThat(history).extracting(AuditRecord::getStatus)
+                .containsExactly("STATUS_0", "STATUS_2", "STATUS_4", "STATUS_6", "STATUS_8", "STATUS_10");
+        assertThat(reopened.history("pay-c")).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void recoveryStopsAtTornRecord() throws Exception {
+        PaymentJournal journal = new PaymentJournal(dir, 1024L * AuditRecordCodec.RECORD_SIZE, 1, true);
+        journal.open();
+        journal.append(record("pay-a", "CREATED"));
+        journal.append(record("pay-a", "SUCCEEDED"));
+        journal.close();
+
+        // Corrupt one byte in the second record body
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve(JournalSegment.fileName(0)).toFile(), "rw")) {
+            file.seek(AuditRecordCodec.RECORD_SIZE + 100);
+            file.write(0x7f);
+        }
+
+        PaymentJournal reopened = new PaymentJournal(dir, 1024L * AuditRecordCodec.RECORD_SIZE, 1, true);
+        reopened.open();
+        assertThat(reopened.append(record("pay-a", "RETRIED"))).isEqualTo(1);
+        assertThat(reopened.history("pay-a")).extracting(AuditRecord::getStatus)
+                .containsExactly("CREATED", "RETRIED");
+        reopened.close();
+    }
+
+    @Test
+    void durableAppendFailsInsteadOfWaitingForever() {
+        // The flusher never gets to run within the append's durable timeout
+        PaymentJournal journal = new PaymentJournal(dir, SEGMENT_BYTES, 60_000, true, 50);
+        journal.open();
+
+        assertThatThrownBy(() -> journal.append(record("pay-a", "CREATED")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(journal.history("pay-a")).extracting(AuditRecord::getStatus).containsExactly("CREATED");
+        journal.close();
+    }
+
+    @Test
+    void rollingDropsSegmentsBeyondRetention() {
+        PaymentJournal journal = new PaymentJournal(dir, SEGMENT_BYTES, 1, true, 5000, 2);
+        journal.open();
+        for (int i = 0; i < 17; i++) {
+            journal.append(record("pay-a", "STATUS_" + i));
+        }
+
+        // Four rolls, two sealed segments retained: records 0-7 are gone, 8-15 sealed, 16 active
+        assertThat(dir.resolve(JournalSegment.fileName(0))).doesNotExist();
+        assertThat(JournalSegment.indexPath(dir.resolve(JournalSegment.fileName(4)))).doesNotExist();
+        assertThat(journal.history("pay-a")).extracting(AuditRecord::getSequence)
+                .containsExactly(8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L);
+        journal.close();
+    }
+
+    private static AuditRecord record(String paymentUuid, String status) {
+        return AuditRecord.builder()
+                .timestamp(Instant.now())
+                .event(AuditEventType.GATEWAY_RESULT)
+                .paymentUuid(paymentUuid)
+                .status(status)
+                .amount(1000L)
+                .currency("usd")
+                .build();
+    }
+}
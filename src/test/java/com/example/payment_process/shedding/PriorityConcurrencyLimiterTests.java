@@ -0,0 +1,92 @@
+package com.example.payment_process.shedding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityConcurrencyLimiterTests {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void shedsLowPriorityFirst() {
+        LoadSheddingProperties properties = new LoadSheddingProperties();
+        PriorityConcurrencyLimiter limiter = new PriorityConcurrencyLimiter(
+                new GradientLimit(10, 10, 10, 1.5, 0.2, 600), properties);
+
+        // 7 = sheddableShare 0.7 of 10
+        for (int i = 0; i < 7; i++) {
+            assertThat(limiter.tryAcquire(RequestPriority.SHEDDABLE)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(RequestPriority.SHEDDABLE)).isFalse();
+
+        // NORMAL up to 8 (0.85), CRITICAL up to the full limit
+        assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isTrue();
+        assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isFalse();
+        assertThat(limiter.tryAcquire(RequestPriority.CRITICAL)).isTrue();
+        assertThat(limiter.tryAcquire(RequestPriority.CRITICAL)).isTrue();
+        assertThat(limiter.tryAcquire(RequestPriority.CRITICAL)).isFalse();
+
+        limiter.release(5 * MS);
+        assertThat(limiter.getInflight()).isEqualTo(9);
+        assertThat(limiter.tryAcquire(RequestPriority.CRITICAL)).isTrue();
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        GradientLimit limit = new GradientLimit(20, 10, 200, 1.5, 0.2, 600);
+
+        // Busy (inflight at the limit) with steady 10 ms latency: probe upward
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MS, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        // Latency jumps to 5x the baseline: requests are queueing, back off
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(50 * MS, limit.getLimit());
+        }
+        assertThat(limit.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    void idleSamplesDoNotRaiseTheLimit() {
+        GradientLimit limit = new GradientLimit(40, 10, 200, 1.5, 0.2, 600);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MS, 1);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(40);
+    }
+
+    @Test
+    void limitStaysWithinBounds() {
+        GradientLimit limit = new GradientLimit(20, 10, 30, 1.5, 0.5, 10);
+
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10 * MS, limit.getLimit());
+        }
+        assertThat(limit.getLimit()).isEqualTo(30);
+
+        // Latency climbing 50% per request, faster than the baseline can follow
+        double rttMs = 10;
+        for (int i = 0; i < 30; i++) {
+            rttMs *= 1.5;
+            limit.onSample((long) (rttMs * MS), limit.getLimit());
+        }
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void classifiesEndpoints() {
+        assertThat(LoadSheddingFilter.classify("POST", "/api/payment/webhook/stripe")).isEqualTo(RequestPriority.CRITICAL);
+        assertThat(LoadSheddingFilter.classify("POST", "/api/payment/webhook/stripe/eu")).isEqualTo(RequestPriority.CRITICAL);
+        assertThat(LoadSheddingFilter.classify("POST", "/api/payment/create")).isEqualTo(RequestPriority.CRITICAL);
+        assertThat(LoadSheddingFilter.classify("POST", "/api/payment/stripe/checkout")).isEqualTo(RequestPriority.CRITICAL);
+        assertThat(LoadSheddingFilter.classify("GET", "/api/payment/status/abc")).isEqualTo(RequestPriority.SHEDDABLE);
+        assertThat(LoadSheddingFilter.classify("GET", "/api/payment/list")).isEqualTo(RequestPriority.SHEDDABLE);
+        assertThat(LoadSheddingFilter.classify("GET", "/api/payment/stats")).isEqualTo(RequestPriority.NORMAL);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.payment_process.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailSamplingSpanProcessorTests {
+
+    private static final long THRESHOLD_MS = 500;
+    private static final long T0_MS = 1_000_000;
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private TailSamplingSpanProcessor sampler;
+    private SdkTracerProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    void dropsFastSuccessfulTraces() {
+        Tracer tracer = tracer(0.0, 60_000);
+
+        Span root = start(tracer, "http post /create", null, 0);
+        end(start(tracer, "payment.db.insert", root, 0), 20);
+        end(root, 50);
+
+        assertThat(exporter.getFinishedSpanItems()).isEmpty();
+        assertThat(sampler.bufferedTraces()).isZero();
+    }
+
+    @Test
+    void keepsWholeTraceWhenAChildFailed() {
+        Tracer tracer = tracer(0.0, 60_000);
+
+        Span root = start(tracer, "http post /create", null, 0);
+        end(start(tracer, "payment.idempotency.lookup", root, 0), 2);
+        Span gateway = start(tracer, "payment.gateway.intent", root, 2);
+        gateway.setStatus(StatusCode.ERROR);
+        end(gateway, 30);
+        end(root, 40);
+
+        assertThat(exporter.getFinishedSpanItems()).extracting(SpanData::getName)
+                .containsExactlyInAnyOrder("http post /create", "payment.idempotency.lookup", "payment.gateway.intent");
+    }
+
+    @Test
+    void keepsSlowTracesAndTheirLateSpans() {
+        Tracer tracer = tracer(0.0, 60_000);
+
+        Span root = start(tracer, "http post /create", null, 0);
+        Span stripe = start(tracer, "stripe.api.request", root, 0);
+        end(stripe, THRESHOLD_MS + 100);
+        Span background = start(tracer, "stripe.price.create", root, THRESHOLD_MS + 100);
+        end(root, THRESHOLD_MS + 150);
+
+        // Ends after the root: follows the decision already made for its trace
+        end(background, THRESHOLD_MS + 300);
+
+        assertThat(exporter.getFinishedSpanItems()).extracting(SpanData::getName)
+                .containsExactlyInAnyOrder("http post /create", "stripe.api.request", "stripe.price.create");
+    }
+
+    @Test
+    void decidesTracesWhoseRootNeverEndsHere() {
+        Tracer tracer = tracer(0.0, 0);
+
+        Span root = start(tracer, "http post /create", null, 0);
+        Span child = start(tracer, "payment.db.update", root, 0);
+        child.setStatus(StatusCode.ERROR);
+        end(child, 5);
+        assertThat(sampler.bufferedTraces()).isEqualTo(1);
+
+        sampler.decideExpired();
+
+        assertThat(sampler.bufferedTraces()).isZero();
+        assertThat(exporter.getFinishedSpanItems()).extracting(SpanData::getName)
+                .containsExactly("payment.db.update");
+    }
+
+    private Tracer tracer(double baselineRatio, long decisionWaitMs) {
+        sampler = new TailSamplingSpanProcessor(SimpleSpanProcessor.create(exporter),
+                THRESHOLD_MS, baselineRatio, decisionWaitMs, 100);
+        provider = SdkTracerProvider.builder().addSpanProcessor(sampler).build();
+        return provider.get("tail-sampling-test");
+    }
+
+    // Explicit timestamps, so latency does not depend on how fast the test runs
+    private static Span start(Tracer tracer, String name, Span parent, long startMs) {
+        return tracer.spanBuilder(name)
+                .setParent(parent == null ? Context.root() : Context.root().with(parent))
+                .setStartTimestamp(T0_MS + startMs, TimeUnit.MILLISECONDS)
+                .startSpan();
+    }
+
+    private static void end(Span span, long endMs) {
+        span.end(T0_MS + endMs, TimeUnit.MILLISECONDS);
+    }
+}